@@ -0,0 +1,169 @@
+package com.techacademy.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.techacademy.DailyReportSystemApplication;
+import com.techacademy.compression.ReportContentCodec;
+import com.techacademy.service.ReportSearchIndex;
+import com.techacademy.service.ReportSummaryService;
+import com.techacademy.service.UserDetail;
+import com.techacademy.service.UserDetailService;
+
+// ベンチマーク用のアプリケーション起動・データ投入
+final class BenchmarkContext {
+
+    // 管理者の社員番号・ベンチマーク用従業員のパスワード
+    static final String ADMIN_CODE = "1";
+    static final String PASSWORD = "password1";
+
+    // 1回のバッチで投入する件数
+    private static final int BATCH_SIZE = 1000;
+
+    // 起動ごとに別の組み込みDBを使う
+    private static final AtomicInteger DATABASE_SEQUENCE = new AtomicInteger();
+
+    private BenchmarkContext() {
+    }
+
+    // 組み込みDB(H2)を使ってアプリケーションを起動する
+    // (コマンドライン引数はapplication.propertiesより優先される)
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        return startH2("jdbc:h2:mem:benchmark" + DATABASE_SEQUENCE.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE", extraArgs);
+    }
+
+    // 指定したURLのH2(TCPサーバー経由の接続など)を使ってアプリケーションを起動する
+    static ConfigurableApplicationContext startH2(String url, String... extraArgs) {
+        return start(List.of("--spring.datasource.url=" + url, "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa", "--spring.datasource.password="), extraArgs);
+    }
+
+    // 規模別の大量データを投入したDBでアプリケーションを起動する
+    // 既定では target/benchmark-db/<規模> にH2のファイルDBを作成し、同じ条件のデータが投入済みであれば再利用する
+    // -Dbenchmark.datasource.url(.username・.password)を指定した場合は、そのDB(ローカルのMySQLなど)を使う
+    static ConfigurableApplicationContext startScaleTier(ScaleTier tier, double deletedRatio, String... extraArgs)
+            throws IOException {
+        Path directory = Path.of(System.getProperty("benchmark.db.directory", "target/benchmark-db"), tier.label())
+                .toAbsolutePath();
+        String url = System.getProperty("benchmark.datasource.url",
+                "jdbc:h2:file:" + directory.resolve("reports") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE");
+        String username = System.getProperty("benchmark.datasource.username", "sa");
+        String password = System.getProperty("benchmark.datasource.password", "");
+        Path indexFile = directory.resolve("report-search.idx");
+        List<String> databaseArgs = List.of("--spring.datasource.url=" + url,
+                "--spring.datasource.driver-class-name="
+                        + (url.startsWith("jdbc:h2:") ? "org.h2.Driver" : "com.mysql.cj.jdbc.Driver"),
+                "--spring.datasource.username=" + username, "--spring.datasource.password=" + password,
+                "--app.search.index-file=" + indexFile);
+
+        // 未投入・条件が異なる場合は、テーブルを作り直して投入する
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(tier.employeeCount(), tier.years(),
+                deletedRatio);
+        boolean generated = generator.isGenerated(url, username, password);
+        if (!generated) {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(indexFile);
+        }
+        // 投入済みの場合は、データを残すためテーブルを作り直さない
+        List<String> args = new ArrayList<>(databaseArgs);
+        args.add("--spring.jpa.hibernate.ddl-auto=" + (generated ? "none" : "create"));
+        ConfigurableApplicationContext context = start(args, extraArgs);
+        if (!generated) {
+            generator.generate(context);
+            // 集計テーブル・検索用インデックスは起動時に空の日報テーブルから作成されているため、起動時と同じ処理で作り直す
+            context.getBean(ReportSummaryService.class).rebuild();
+            context.getBean(ReportSearchIndex.class).afterSingletonsInstantiated();
+        }
+        return context;
+    }
+
+    private static ConfigurableApplicationContext start(List<String> databaseArgs, String... extraArgs) {
+        List<String> args = new ArrayList<>(databaseArgs);
+        args.addAll(List.of("--spring.sql.init.mode=never", "--spring.jpa.show-sql=false",
+                "--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                // 本番と同じ条件にするためDevToolsを無効にする(テンプレートキャッシュ等)
+                "--spring.devtools.restart.enabled=false", "--spring.devtools.add-properties=false",
+                "--spring.autoconfigure.exclude=org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(DailyReportSystemApplication.class).run(args.toArray(String[]::new));
+    }
+
+    // 管理者1名と一般従業員を投入し、日報を従業員ごとに1日1件ずつ日付を遡って投入する
+    static void seed(ApplicationContext context, int employeeCount, int reportCount) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ReportContentCodec codec = context.getBean(ReportContentCodec.class);
+        String password = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> employees = new ArrayList<>();
+        for (int i = 1; i <= employeeCount; i++) {
+            String code = String.valueOf(i);
+            String role = ADMIN_CODE.equals(code) ? "ADMIN" : "GENERAL";
+            employees.add(new Object[] { code, "ベンチ　従業員" + i, role, password, now, now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO employees(code, name, role, password, delete_flg, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, 0, ?, ?)", employees);
+
+        LocalDate today = LocalDate.now();
+        List<Object[]> reports = new ArrayList<>();
+        for (int i = 0; i < reportCount; i++) {
+            String code = String.valueOf(i % employeeCount + 1);
+            LocalDate reportDate = today.minusDays(i / employeeCount);
+            reports.add(new Object[] { i + 1, reportDate, "日報タイトル " + i, content(i), code, now, now });
+            if (reports.size() == BATCH_SIZE) {
+                insertReports(jdbcTemplate, codec, reports);
+                reports.clear();
+            }
+        }
+        insertReports(jdbcTemplate, codec, reports);
+
+        // 日報IDの採番を投入したIDより後ろから開始する(まとめて採番する件数分の余裕を空ける)
+        jdbcTemplate.execute("ALTER SEQUENCE reports_seq RESTART WITH " + (reportCount + 101));
+    }
+
+    // 日報(id, 日付, タイトル, 内容, 社員番号, 登録日時, 更新日時)を日報テーブルと内容テーブルに投入する
+    // 内容はアプリケーションと同じ形式(ReportContentCodec)に変換して投入する
+    private static void insertReports(JdbcTemplate jdbcTemplate, ReportContentCodec codec, List<Object[]> reports) {
+        if (!reports.isEmpty()) {
+            List<Object[]> metadata = new ArrayList<>(reports.size());
+            List<Object[]> contents = new ArrayList<>(reports.size());
+            for (Object[] report : reports) {
+                metadata.add(new Object[] { report[0], report[1], report[2], report[4], report[5], report[6] });
+                contents.add(new Object[] { report[0], codec.encode((String) report[3]) });
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO reports(id, report_date, title, employee_code, delete_flg, "
+                    + "created_at, updated_at) VALUES (?, ?, ?, ?, 0, ?, ?)", metadata);
+            jdbcTemplate.batchUpdate("INSERT INTO report_contents(report_id, content) VALUES (?, ?)", contents);
+        }
+    }
+
+    // 日報の内容(一般的な長さの日本語文)
+    static String content(int seed) {
+        return "本日は顧客先での打ち合わせと資料作成を行いました。" + "午前中は定例会議に参加し、進捗状況を共有しました。"
+                + "午後は見積書の修正対応と問い合わせへの回答を実施しました。" + "明日は提案内容の最終確認を行う予定です。（" + seed + "）";
+    }
+
+    // 指定した従業員でログインした状態にする(ベンチマークのスレッドから参照できるようグローバルに設定)
+    static void login(ApplicationContext context, String code) {
+        UserDetail userDetail = (UserDetail) context.getBean(UserDetailService.class).loadUserByUsername(code);
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetail, null, userDetail.getAuthorities()));
+    }
+}
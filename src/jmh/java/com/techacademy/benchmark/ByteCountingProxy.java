@@ -0,0 +1,96 @@
+package com.techacademy.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// DBとの通信量を数えるためのTCPの中継(アプリケーション → 中継 → DBサーバー)
+// DBサーバーからアプリケーションへ送られたバイト数(検索結果など)を数える
+final class ByteCountingProxy implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ServerSocket serverSocket;
+    private final int targetPort;
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "byte-counting-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // ローカルの空いているポートで待ち受け、同じホストの指定したポートへ中継する
+    ByteCountingProxy(int targetPort) throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.targetPort = targetPort;
+        executor.execute(this::accept);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    // これまでにDBサーバーから受信したバイト数
+    long receivedBytes() {
+        return receivedBytes.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                Socket server = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                // 小さな要求・応答が遅延しないようにする
+                client.setTcpNoDelay(true);
+                server.setTcpNoDelay(true);
+                executor.execute(() -> relay(client, server, null));
+                executor.execute(() -> relay(server, client, receivedBytes));
+            } catch (IOException e) {
+                // 中継の終了(待ち受けのソケットを閉じた)
+                return;
+            }
+        }
+    }
+
+    // 一方向に中継する(counterがnullでない場合は中継したバイト数を加算する)
+    private static void relay(Socket from, Socket to, AtomicLong counter) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+            int length;
+            while ((length = in.read(buffer)) >= 0) {
+                // 受信側が読み込む前に数え終えるよう、書き込みより先に加算する
+                if (counter != null) {
+                    counter.addAndGet(length);
+                }
+                out.write(buffer, 0, length);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // どちらかが切断した
+        } finally {
+            closeQuietly(from);
+            closeQuietly(to);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // 切断済み
+        }
+    }
+}
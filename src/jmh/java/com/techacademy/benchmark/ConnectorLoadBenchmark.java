@@ -0,0 +1,123 @@
+package com.techacademy.benchmark;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+// HTTPコネクタ経由の負荷試験(スレッドプールと仮想スレッドのスループット・p99レイテンシの比較)
+// Throughputでスループット、SampleTimeでp99等のパーセンタイルが出力される
+// 仮想スレッドはJava 21以上でのみ計測できる(mvn -Pbenchmark,java21 verify をJDK 21で実行。それ未満ではvirtualの計測はエラーとなる)
+// 仮想スレッドでは同時に処理するリクエスト数が接続プールの大きさまでに制限される(ConcurrentRequestLimiter)
+// 同時接続数は -Djmh.args="ConnectorLoad -t 512" のように変更できる
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+public class ConnectorLoadBenchmark {
+
+    // ログインページのCSRFトークン
+    private static final Pattern CSRF_PATTERN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    // アプリケーション(全スレッドで共有)
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        // pooled: Tomcatのスレッドプール(既定値の最大200スレッド)、virtual: 仮想スレッド
+        @Param({ "pooled", "virtual" })
+        public String threading;
+
+        private ServletWebServerApplicationContext context;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            boolean virtual = "virtual".equals(threading);
+            if (virtual && Runtime.version().feature() < 21) {
+                throw new IllegalStateException("仮想スレッドの計測にはJava 21以上が必要です");
+            }
+
+            // 計測対象ではない全スレッド同時のログインが照合待ち・同時処理数の空き待ちの上限を超えないよう、上限を広げ強度を下げる
+            context = (ServletWebServerApplicationContext) BenchmarkContext.start(
+                    "--spring.threads.virtual.enabled=" + virtual, "--app.password.strength=10",
+                    "--app.password.encoder-queue-capacity=10000", "--app.datasource.concurrent-request-timeout=10m");
+            BenchmarkContext.seed(context, 50, 10000);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        String baseUrl() {
+            return "http://localhost:" + context.getWebServer().getPort();
+        }
+    }
+
+    // 利用者(スレッドごとにログイン済みのセッションを持つ)
+    @State(Scope.Thread)
+    public static class Client {
+
+        private HttpClient httpClient;
+        private HttpRequest listRequest;
+
+        @Setup(Level.Trial)
+        public void setUp(Server server) throws IOException, InterruptedException {
+            httpClient = HttpClient.newBuilder().cookieHandler(new CookieManager())
+                    .connectTimeout(Duration.ofSeconds(10)).build();
+
+            // ログイン画面のCSRFトークンを取得してログインする
+            String loginPage = httpClient.send(HttpRequest.newBuilder(URI.create(server.baseUrl() + "/login")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            Matcher matcher = CSRF_PATTERN.matcher(loginPage);
+            if (!matcher.find()) {
+                throw new IllegalStateException("ログイン画面からCSRFトークンを取得できません");
+            }
+            String form = "username=" + BenchmarkContext.ADMIN_CODE + "&password=" + BenchmarkContext.PASSWORD
+                    + "&_csrf=" + URLEncoder.encode(matcher.group(1), StandardCharsets.UTF_8);
+            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(server.baseUrl() + "/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 302 || response.headers().firstValue("Location").orElse("").contains("error")) {
+                throw new IllegalStateException("ログインに失敗しました");
+            }
+
+            listRequest = HttpRequest.newBuilder(URI.create(server.baseUrl() + "/reports")).build();
+        }
+    }
+
+    // 日報一覧画面(DB検索・テンプレート描画を含む)
+    @Benchmark
+    public int reportList(Client client) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.httpClient.send(client.listRequest, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("日報一覧画面の取得に失敗しました: " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
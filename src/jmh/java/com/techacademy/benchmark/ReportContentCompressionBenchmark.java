@@ -0,0 +1,154 @@
+package com.techacademy.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.techacademy.compression.ReportContentCodec;
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.entity.Report;
+import com.techacademy.service.ReportService;
+
+// 日報の内容の圧縮の有無ごとの、保存量と処理時間の計測
+// ・save: 日報の登録(内容の圧縮を含む)
+// ・detail: 詳細画面と同じ1件の取得(内容の展開を含む)
+// ・encode・decode: 内容の変換のみ
+// 結果の storedBytes・textBytes が投入した日報1件あたりの内容の保存量・UTF-8での大きさ
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportContentCompressionBenchmark {
+
+    // 投入する従業員の数(1年分、平日1日1件の日報を投入する)
+    private static final int EMPLOYEE_COUNT = 20;
+
+    // 変換のみの計測に使う内容の件数
+    private static final int SAMPLE_SIZE = 1000;
+
+    @Param({ "false", "true" })
+    public boolean compression;
+
+    private ConfigurableApplicationContext context;
+    private ReportService reportService;
+    private ReportContentCodec codec;
+
+    private int reportCount;
+    private long storedTotal;
+    private long textTotal;
+    private final List<String> sampleContents = new ArrayList<>();
+    private final List<byte[]> sampleStored = new ArrayList<>();
+
+    private int detailSequence;
+    private int saveSequence;
+    private int sampleSequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("--app.search.index-file=",
+                "--app.report-content.compression.enabled=" + compression);
+        // 実際の日報に近い長さの内容で投入する
+        reportCount = (int) new SyntheticDataGenerator(EMPLOYEE_COUNT, 1, 0).generate(context);
+        reportService = context.getBean(ReportService.class);
+        codec = context.getBean(ReportContentCodec.class);
+
+        context.getBean(JdbcTemplate.class).query("SELECT content FROM report_contents ORDER BY report_id", resultSet -> {
+            byte[] stored = resultSet.getBytes(1);
+            String content = codec.decode(stored);
+            storedTotal += stored.length;
+            textTotal += content.getBytes(StandardCharsets.UTF_8).length;
+            if (sampleContents.size() < SAMPLE_SIZE) {
+                sampleContents.add(content);
+                sampleStored.add(stored);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 日報1件あたりの内容の保存量
+    // 結果には各繰り返しの値の合計が表示されるため、繰り返しの回数(フォーク数 × 計測回数)で割った値を記録する
+    // (繰り返しの開始時には0に戻されるため、計測する処理の中で記録する)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Storage {
+
+        // 保存量
+        public double storedBytes;
+        // UTF-8での大きさ
+        public double textBytes;
+
+        private double stored;
+        private double text;
+
+        @Setup(Level.Iteration)
+        public void reset(ReportContentCompressionBenchmark benchmark, BenchmarkParams benchmarkParams,
+                IterationParams iterationParams) {
+            int iterations = Math.max(1, benchmarkParams.getForks()) * iterationParams.getCount();
+            stored = (double) benchmark.storedTotal / benchmark.reportCount / iterations;
+            text = (double) benchmark.textTotal / benchmark.reportCount / iterations;
+        }
+
+        private void record() {
+            storedBytes = stored;
+            textBytes = text;
+        }
+    }
+
+    // 投入済みの日報と重ならない日付(翌日以降)で登録する
+    @Benchmark
+    public ErrorKinds save(Storage storage) {
+        storage.record();
+        String content = sampleContents.get(saveSequence % SAMPLE_SIZE);
+        Report report = new Report();
+        report.setReportDate(LocalDate.now().plusDays(++saveSequence));
+        report.setTitle("計測用の日報");
+        report.setContent(content);
+        report.setEmployeeCode("1");
+        return reportService.save(report);
+    }
+
+    @Benchmark
+    public Report detail(Storage storage) {
+        storage.record();
+        return reportService.findWithContent(detailSequence++ % reportCount + 1);
+    }
+
+    @Benchmark
+    public byte[] encode(Storage storage) {
+        storage.record();
+        return codec.encode(sampleContents.get(sampleSequence++ % SAMPLE_SIZE));
+    }
+
+    @Benchmark
+    public String decode(Storage storage) {
+        storage.record();
+        return codec.decode(sampleStored.get(sampleSequence++ % SAMPLE_SIZE));
+    }
+}
@@ -0,0 +1,76 @@
+package com.techacademy.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.techacademy.compression.ReportContentCodec;
+
+// 日報の内容の圧縮用辞書(src/main/resources/compression/report-content-dictionary-<番号>.txt)の作成
+// 登録済みの日報の内容を文(「。」「、」区切り)に分け、出現回数 × バイト数の大きい文から辞書の上限まで選ぶ
+// Deflateは近くにある表現ほど短く参照できるため、よく使われる文ほど辞書の末尾に置く
+//   mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test
+//       -Dexec.mainClass=com.techacademy.benchmark.ReportContentDictionaryTrainer
+//       -Dexec.args="<DBのURL> <ユーザー名> <パスワード> <出力ファイル> [辞書の上限バイト数]"
+// 作成した辞書は番号を上げたファイルとして追加する(既存の辞書は、その辞書で圧縮した行を読むため残す)
+public class ReportContentDictionaryTrainer {
+
+    // Deflateが参照できる範囲(32KB)より小さくし、短い日報の圧縮時に辞書を読み込む負荷を抑える
+    private static final int DEFAULT_SIZE = 8 * 1024;
+
+    // 辞書に含める文の最小の出現回数
+    private static final int MIN_COUNT = 3;
+
+    public static void main(String[] args) throws SQLException, IOException {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("DBのURL・ユーザー名・パスワード・出力ファイルを指定してください");
+        }
+        int size = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_SIZE;
+
+        // 圧縮済み・圧縮前のどちらの形式の内容も読み込める
+        ReportContentCodec codec = new ReportContentCodec(false, 0);
+        Map<String, Integer> counts = new HashMap<>();
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT content FROM report_contents")) {
+            while (resultSet.next()) {
+                for (String sentence : codec.decode(resultSet.getBytes(1)).split("(?<=[。、\\n])")) {
+                    if (sentence.length() > 1) {
+                        counts.merge(sentence, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> sentences = new ArrayList<>(counts.entrySet());
+        sentences.removeIf(entry -> entry.getValue() < MIN_COUNT);
+        sentences.sort(Comparator.comparingLong(ReportContentDictionaryTrainer::score).reversed());
+        List<String> selected = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : sentences) {
+            int bytes = entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+            if (total + bytes <= size) {
+                selected.add(0, entry.getKey());
+                total += bytes;
+            }
+        }
+
+        Files.writeString(Path.of(args[3]), String.join("", selected), StandardCharsets.UTF_8);
+        System.out.println("文の種類: " + counts.size() + ", 辞書に含めた文: " + selected.size() + ", 辞書のバイト数: " + total);
+    }
+
+    private static long score(Map.Entry<String, Integer> entry) {
+        return (long) entry.getValue() * entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+    }
+}
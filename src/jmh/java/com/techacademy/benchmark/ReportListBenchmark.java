@@ -0,0 +1,78 @@
+package com.techacademy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.ui.ExtendedModelMap;
+
+import com.techacademy.controller.ReportController;
+import com.techacademy.dto.ReportListRow;
+import com.techacademy.dto.ReportPage;
+import com.techacademy.service.ReportService;
+
+// 日報一覧(管理者・全従業員分)の計測 日報件数ごとに先頭ページと中間ページを取得する
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportListBenchmark {
+
+    // 1ページの件数
+    private static final int PAGE_SIZE = 20;
+
+    @Param({ "1000", "10000", "100000" })
+    public int reportCount;
+
+    private ConfigurableApplicationContext context;
+    private ReportController reportController;
+
+    // 中間ページのカーソル(全体の半分あたりの行)
+    private ReportListRow middleCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, 50, reportCount);
+        BenchmarkContext.login(context, BenchmarkContext.ADMIN_CODE);
+        reportController = context.getBean(ReportController.class);
+
+        // 先頭からページを辿って中間付近のカーソルを求める(計測対象外)
+        ReportService reportService = context.getBean(ReportService.class);
+        ReportPage page = reportService.findPage(null, null, null, false, reportCount / 2);
+        middleCursor = page.getLast();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ExtendedModelMap firstPage() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        reportController.list(PAGE_SIZE, null, null, null, null, model);
+        return model;
+    }
+
+    @Benchmark
+    public ExtendedModelMap middlePage() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        reportController.list(PAGE_SIZE, middleCursor.reportDate(), middleCursor.id(), null, null, model);
+        return model;
+    }
+}
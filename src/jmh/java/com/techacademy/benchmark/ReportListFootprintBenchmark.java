@@ -0,0 +1,155 @@
+package com.techacademy.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.techacademy.dto.ReportListRow;
+import com.techacademy.entity.Report;
+import com.techacademy.repository.ReportRepository;
+
+// 日報一覧の取得方法ごとの、1回の取得あたりのヒープの割り当て量・DBからの受信量の計測
+// ・entities: エンティティで全件取得(読み取り専用のトランザクション)
+// ・managedEntities: エンティティで全件取得(読み書き可能なトランザクション。変更検知用の複製を保持し、コミット時に全件を比較する)
+// ・listRows: 一覧の項目のみを全件取得(従業員名は結合して取得する)
+// (日報の内容は別テーブルのため、いずれの方法でも読み込まない)
+// DBは同じJVM内のH2をTCPサーバーとして起動し、中継を挟んで受信したバイト数を数える
+// 結果の heapBytes・wireBytes が1回あたりのバイト数(ヒープは計測スレッドで割り当てた量)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ReportListFootprintBenchmark {
+
+    // 1年あたりの平日の日数(従業員1人あたりの日報の件数)
+    private static final int WEEKDAYS_PER_YEAR = 261;
+
+    @Param({ "10000", "100000" })
+    public int reportCount;
+
+    private Server h2Server;
+    private ByteCountingProxy proxy;
+    private ConfigurableApplicationContext context;
+    private ReportRepository reportRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        int h2Port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            h2Port = socket.getLocalPort();
+        }
+        h2Server = Server.createTcpServer("-tcpPort", String.valueOf(h2Port), "-ifNotExists").start();
+        proxy = new ByteCountingProxy(h2Port);
+        context = BenchmarkContext.startH2("jdbc:h2:tcp://localhost:" + proxy.port()
+                + "/mem:footprint;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+
+        // 実際の日報に近い長さのタイトル・内容で、1年分(平日1日1件)の日報を投入する
+        new SyntheticDataGenerator(Math.max(1, reportCount / WEEKDAYS_PER_YEAR), 1, 0).generate(context);
+
+        reportRepository = context.getBean(ReportRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        proxy.close();
+        h2Server.stop();
+    }
+
+    // 1回の取得あたりの平均のバイト数(計測の繰り返しごとに集計し直す)
+    // 結果には各繰り返しの値の合計が表示されるため、繰り返しの回数(フォーク数 × 計測回数)で割った値を記録する
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+
+        // ヒープの割り当て量
+        public double heapBytes;
+        // DBからの受信量
+        public double wireBytes;
+
+        private long count;
+        private long heapTotal;
+        private long wireTotal;
+        private int iterations;
+
+        @Setup(Level.Iteration)
+        public void reset(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+            iterations = Math.max(1, benchmarkParams.getForks()) * iterationParams.getCount();
+            heapBytes = 0;
+            wireBytes = 0;
+            count = 0;
+            heapTotal = 0;
+            wireTotal = 0;
+        }
+
+        private void add(long heap, long wire) {
+            count++;
+            heapTotal += heap;
+            wireTotal += wire;
+            heapBytes = (double) heapTotal / count / iterations;
+            wireBytes = (double) wireTotal / count / iterations;
+        }
+    }
+
+    @Benchmark
+    public List<Report> entities(Footprint footprint) {
+        return measure(footprint, () -> reportRepository.findAll());
+    }
+
+    @Benchmark
+    public List<Report> managedEntities(Footprint footprint) {
+        return measure(footprint, () -> readWriteTransaction.execute(status -> reportRepository.findAll()));
+    }
+
+    @Benchmark
+    public List<ReportListRow> listRows(Footprint footprint) {
+        return measure(footprint,
+                () -> readOnlyTransaction.execute(status -> reportRepository.findListRows(Pageable.unpaged())));
+    }
+
+    private <T> T measure(Footprint footprint, Supplier<T> query) {
+        long heap = Footprint.THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        long wire = proxy.receivedBytes();
+        T result = query.get();
+        footprint.add(Footprint.THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - heap,
+                proxy.receivedBytes() - wire);
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.techacademy.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import com.techacademy.controller.ReportController;
+
+// 日報一覧画面(reports/list)のThymeleafによる描画のみを計測する
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportListRenderBenchmark {
+
+    private ServletWebServerApplicationContext context;
+    private View view;
+    private ExtendedModelMap model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = (ServletWebServerApplicationContext) BenchmarkContext.start();
+        BenchmarkContext.seed(context, 50, 1000);
+        BenchmarkContext.login(context, BenchmarkContext.ADMIN_CODE);
+
+        // 描画に使うモデルはあらかじめ1ページ分作成しておく(計測対象外)
+        model = new ExtendedModelMap();
+        String viewName = context.getBean(ReportController.class).list(20, null, null, null, null, model);
+        view = context.getBean(ThymeleafViewResolver.class).resolveViewName(viewName, Locale.JAPAN);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String render() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(context.getServletContext());
+        request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, context);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+        return response.getContentAsString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.techacademy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.techacademy.dto.ReportSearchPage;
+import com.techacademy.service.ReportSearchIndex;
+import com.techacademy.service.ReportService;
+
+// 日報検索を日報の件数ごとに計測する
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportSearchBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int reportCount;
+
+    // 多くの日報に含まれる語、一部の日報のみに含まれる語
+    @Param({ "打ち合わせ", "日報タイトル 77" })
+    public String query;
+
+    private ConfigurableApplicationContext context;
+    private ReportService reportService;
+    private ReportSearchIndex searchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // インデックスはファイルに保存せず、投入したデータから作成する
+        context = BenchmarkContext.start("--app.search.index-file=");
+        BenchmarkContext.seed(context, 100, reportCount);
+        searchIndex = context.getBean(ReportSearchIndex.class);
+        searchIndex.afterSingletonsInstantiated();
+        reportService = context.getBean(ReportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 検索画面と同じ処理(インデックス検索と1ページ分のDB取得)
+    @Benchmark
+    public ReportSearchPage search() {
+        return reportService.search(query, null, 0, 20);
+    }
+
+    // インデックス検索のみ
+    @Benchmark
+    public ReportSearchIndex.Hits indexOnly() {
+        return searchIndex.search(query, null, 0, 20);
+    }
+}
@@ -0,0 +1,102 @@
+package com.techacademy.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.techacademy.repository.ReportRepository;
+import com.techacademy.service.ReportSearchIndex;
+
+// 日報検索用インデックスが保持するヒープの量の計測(日報の件数ごと)
+// 実際の日報に近い長さのタイトル・内容の日報を投入し、全件からインデックスを作成する
+// 結果の retainedBytes が作成したインデックスの大きさ(作成前と作成後にGCしたヒープの使用量の差)
+// 1m・10mの規模で必要なヒープは、100000件の値を件数に比例させて見積もる(ScaleTierBenchmark)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ReportSearchIndexFootprintBenchmark {
+
+    // 1年あたりの平日の日数(従業員1人あたりの日報の件数)
+    private static final int WEEKDAYS_PER_YEAR = 261;
+
+    private static final MemoryMXBean MEMORY_MX_BEAN = ManagementFactory.getMemoryMXBean();
+
+    @Param({ "10000", "100000" })
+    public int reportCount;
+
+    private ConfigurableApplicationContext context;
+    private ReportRepository reportRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // アプリケーションのインデックスは空のまま(投入前に作成される)、計測ごとに別のインデックスを作成する
+        context = BenchmarkContext.start("--app.search.index-file=", "--app.search.catch-up-interval=0");
+        new SyntheticDataGenerator(Math.max(1, reportCount / WEEKDAYS_PER_YEAR), 1, 0).generate(context);
+        reportRepository = context.getBean(ReportRepository.class);
+        transactionManager = context.getBean(PlatformTransactionManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 作成したインデックスの大きさ(計測の繰り返しごとに記録する)
+    // 結果には各繰り返しの値の合計が表示されるため、繰り返しの回数(フォーク数 × 計測回数)で割った値を記録する
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        // インデックスが保持するヒープの量
+        public double retainedBytes;
+
+        private int iterations;
+
+        @Setup(Level.Iteration)
+        public void reset(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+            iterations = Math.max(1, benchmarkParams.getForks()) * iterationParams.getCount();
+            retainedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public ReportSearchIndex build(Footprint footprint) {
+        long before = usedHeap();
+        ReportSearchIndex index = new ReportSearchIndex(reportRepository, transactionManager, "", Duration.ZERO);
+        index.afterSingletonsInstantiated();
+        footprint.retainedBytes = (double) (usedHeap() - before) / footprint.iterations;
+        return index;
+    }
+
+    // GCした後のヒープの使用量
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY_MX_BEAN.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,45 @@
+package com.techacademy.benchmark;
+
+// データ規模(日報の件数の目安)
+// 従業員ごとに平日1日1件の日報を指定年数分投入する(1年あたり約261件)
+enum ScaleTier {
+
+    // 約1万件(40人 × 1年)
+    TIER_10K("10k", 40, 1),
+    // 約100万件(800人 × 5年)
+    TIER_1M("1m", 800, 5),
+    // 約1000万件(4000人 × 10年)
+    TIER_10M("10m", 4000, 10);
+
+    private final String label;
+    private final int employeeCount;
+    private final int years;
+
+    ScaleTier(String label, int employeeCount, int years) {
+        this.label = label;
+        this.employeeCount = employeeCount;
+        this.years = years;
+    }
+
+    // ベンチマークの引数(10k・1m・10m)から取得する
+    static ScaleTier of(String label) {
+        for (ScaleTier tier : values()) {
+            if (tier.label.equals(label)) {
+                return tier;
+            }
+        }
+        throw new IllegalArgumentException("規模は10k・1m・10mのいずれかを指定してください: " + label);
+    }
+
+    String label() {
+        return label;
+    }
+
+    int employeeCount() {
+        return employeeCount;
+    }
+
+    int years() {
+        return years;
+    }
+}
@@ -0,0 +1,267 @@
+package com.techacademy.benchmark;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// データ規模別(日報 約1万件・100万件・1000万件)の主要な操作の応答時間の計測
+// HTTPコネクタ経由で実行し、規模ごとのパーセンタイル(p50・p90・p99等)をSampleTimeで出力する
+// 初回はデータの投入に時間がかかる(1000万件は数十分)ため、投入済みのDBは次回以降も再利用する
+// 規模・論理削除の割合は -Djmh.args="ScaleTier -p tier=10k -p deletedRatio=0.1" のように指定できる
+// 検索用インデックスは日報10万件あたり約210MBのヒープを使う(ReportSearchIndexFootprintBenchmark)
+// 1mでは -jvmArgsAppend -Xmx4g、10mでは -jvmArgsAppend -Xmx32g 程度にヒープを増やす
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ScaleTierBenchmark {
+
+    // 画面のCSRFトークン
+    private static final Pattern CSRF_PATTERN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    // 詳細画面で表示する日報の数(未削除の日報から無作為に選ぶ)
+    private static final int DETAIL_SAMPLE_SIZE = 1000;
+
+    // 従業員削除の計測用に追加する日報のIDの開始値(シーケンスで採番されるIDと重ならないようにする)
+    private static final int DELETE_TARGET_FIRST_ID = 1_000_000_000;
+
+    @Param({ "10k", "1m", "10m" })
+    public String tier;
+
+    // 論理削除済みの日報の割合
+    @Param({ "0.05" })
+    public double deletedRatio;
+
+    private ServletWebServerApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private SyntheticDataGenerator generator;
+    private String baseUrl;
+
+    // 管理者でログイン済みの利用者と、そのセッションのCSRFトークン
+    private HttpClient httpClient;
+    private String csrfToken;
+
+    // ログインの計測用(毎回Cookieを削除して新しいセッションでログインする)
+    private CookieManager loginCookies;
+    private HttpClient loginClient;
+
+    private int[] detailIds;
+    private int detailIndex;
+
+    // 登録する日報の日付(既存の日報より後の日付を1日ずつ進める)
+    private LocalDate nextReportDate;
+
+    // 更新する日報(管理者の最も古い日報の内容を書き換える)
+    private int updateId;
+    private LocalDate updateReportDate;
+    private int updateCount;
+
+    // 従業員削除の計測用の従業員の連番・日報のID・パスワード
+    private int deleteTargetSequence;
+    private int deleteTargetNextId;
+    private String deleteTargetPassword;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        ScaleTier scaleTier = ScaleTier.of(tier);
+        context = (ServletWebServerApplicationContext) BenchmarkContext.startScaleTier(scaleTier, deletedRatio);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        generator = new SyntheticDataGenerator(1, scaleTier.years(), 0);
+        baseUrl = "http://localhost:" + context.getWebServer().getPort();
+
+        httpClient = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+        login(httpClient);
+        csrfToken = csrfToken(send(httpClient, get("/reports/add"), 200));
+
+        loginCookies = new CookieManager();
+        loginClient = HttpClient.newBuilder().cookieHandler(loginCookies).build();
+
+        // 詳細画面: 未削除の日報のIDを無作為に選ぶ
+        int maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM reports WHERE id < ?", Integer.class,
+                DELETE_TARGET_FIRST_ID);
+        SplittableRandom random = new SplittableRandom(1);
+        List<Integer> ids = new ArrayList<>();
+        while (ids.size() < DETAIL_SAMPLE_SIZE) {
+            int id = 1 + random.nextInt(maxId);
+            if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports WHERE id = ? AND delete_flg = 0",
+                    Integer.class, id) > 0) {
+                ids.add(id);
+            }
+        }
+        detailIds = ids.stream().mapToInt(Integer::intValue).toArray();
+
+        nextReportDate = jdbcTemplate.queryForObject("SELECT MAX(report_date) FROM reports WHERE employee_code = ?",
+                LocalDate.class, BenchmarkContext.ADMIN_CODE).plusDays(1);
+        updateId = jdbcTemplate.queryForObject("SELECT id FROM reports WHERE employee_code = ? AND delete_flg = 0 "
+                + "ORDER BY report_date LIMIT 1", Integer.class, BenchmarkContext.ADMIN_CODE);
+        updateReportDate = jdbcTemplate.queryForObject("SELECT report_date FROM reports WHERE id = ?", LocalDate.class,
+                updateId);
+
+        // 再利用したDBに前回の計測で追加した従業員が残っている場合は、その続きから採番する
+        deleteTargetSequence = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees WHERE code LIKE 'del%'",
+                Integer.class);
+        deleteTargetNextId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), ?) FROM reports WHERE id >= ?",
+                Integer.class, DELETE_TARGET_FIRST_ID - 1, DELETE_TARGET_FIRST_ID) + 1;
+        deleteTargetPassword = context.getBean(PasswordEncoder.class).encode(BenchmarkContext.PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 削除する従業員(呼び出しごとに、他の従業員と同じ件数の日報を持つ従業員を追加する。追加は計測対象外)
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+
+        private String code;
+
+        @Setup(Level.Invocation)
+        public void setUp(ScaleTierBenchmark benchmark) {
+            code = "del" + benchmark.deleteTargetSequence++;
+            benchmark.deleteTargetNextId += benchmark.generator.addEmployee(benchmark.context, code,
+                    benchmark.deleteTargetPassword, benchmark.deleteTargetNextId);
+        }
+    }
+
+    // ログイン(ログイン画面の表示・パスワードの照合)
+    @Benchmark
+    public int login() throws IOException, InterruptedException {
+        loginCookies.getCookieStore().removeAll();
+        return login(loginClient);
+    }
+
+    // 日報一覧画面
+    @Benchmark
+    public int reportList() throws IOException, InterruptedException {
+        return send(httpClient, get("/reports"), 200).statusCode();
+    }
+
+    // 日報詳細画面
+    @Benchmark
+    public int reportDetail() throws IOException, InterruptedException {
+        int id = detailIds[detailIndex++ % detailIds.length];
+        return send(httpClient, get("/reports/" + id), 200).statusCode();
+    }
+
+    // 日報登録
+    @Benchmark
+    public int reportAdd() throws IOException, InterruptedException {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("reportDate", nextReportDate.toString());
+        form.put("employeeCode", BenchmarkContext.ADMIN_CODE);
+        form.put("title", "性能計測");
+        form.put("content", "性能計測で登録した日報です。");
+        nextReportDate = nextReportDate.plusDays(1);
+        return send(httpClient, post("/reports/add", form), 302).statusCode();
+    }
+
+    // 日報更新
+    @Benchmark
+    public int reportUpdate() throws IOException, InterruptedException {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("id", String.valueOf(updateId));
+        form.put("employeeCode", BenchmarkContext.ADMIN_CODE);
+        form.put("reportDate", updateReportDate.toString());
+        form.put("title", "性能計測");
+        form.put("content", "性能計測で更新した日報です。（" + updateCount++ + "）");
+        return send(httpClient, post("/reports/" + updateId + "/update", form), 302).statusCode();
+    }
+
+    // 従業員削除(日報の論理削除を含む)
+    @Benchmark
+    public int employeeDelete(DeleteTarget target) throws IOException, InterruptedException {
+        return send(httpClient, post("/employees/" + target.code + "/delete", Map.of()), 302).statusCode();
+    }
+
+    // ログイン画面のCSRFトークンを取得して、管理者でログインする
+    private int login(HttpClient client) throws IOException, InterruptedException {
+        String token = csrfToken(send(client, get("/login"), 200));
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("username", BenchmarkContext.ADMIN_CODE);
+        form.put("password", BenchmarkContext.PASSWORD);
+        form.put("_csrf", token);
+        HttpResponse<String> response = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encode(form))).build(), 302);
+        if (response.headers().firstValue("Location").orElse("").contains("error")) {
+            throw new IllegalStateException("ログインに失敗しました");
+        }
+        return response.statusCode();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).build();
+    }
+
+    private HttpRequest post(String path, Map<String, String> form) {
+        Map<String, String> body = new LinkedHashMap<>(form);
+        body.put("_csrf", csrfToken);
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encode(body))).build();
+    }
+
+    // 想定したステータスでない場合は計測を中止する(入力エラーで画面に戻った場合など)
+    private static HttpResponse<String> send(HttpClient client, HttpRequest request, int expectedStatus)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " の応答が想定と異なります: "
+                    + response.statusCode());
+        }
+        return response;
+    }
+
+    private static String csrfToken(HttpResponse<String> response) {
+        Matcher matcher = CSRF_PATTERN.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("画面からCSRFトークンを取得できません: " + response.uri());
+        }
+        return matcher.group(1);
+    }
+
+    private static String encode(Map<String, String> form) {
+        StringBuilder body = new StringBuilder();
+        form.forEach((name, value) -> {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+        });
+        return body.toString();
+    }
+}
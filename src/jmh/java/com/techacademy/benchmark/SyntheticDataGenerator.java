@@ -0,0 +1,236 @@
+package com.techacademy.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.techacademy.compression.ReportContentCodec;
+
+// 性能計測用の大量データの作成
+// 従業員N人分の日報を、今日から遡ってM年分(平日1日1件)投入する
+// ・タイトル・内容は実際の日報に近い長さの日本語文(内容は上限の600文字まで)
+// ・指定した割合の日報を論理削除済みにする
+// ・日付順(ID順)にJDBCのバッチでまとめて投入する(MySQLでは接続URLのrewriteBatchedStatements=trueで複数行のINSERTになる)
+// 乱数の種が同じであれば、同じ日に作成したデータは同じ内容になる
+final class SyntheticDataGenerator {
+
+    // 1回のバッチで投入する件数
+    private static final int BATCH_SIZE = 1000;
+
+    // 投入したデータの条件を記録するテーブル(同じ条件のデータが投入済みであれば再利用する)
+    private static final String DATASET_TABLE = "benchmark_dataset";
+
+    private static final long SEED = 20240701L;
+
+    // テーブル構成の版(構成を変えた場合は上げて、投入済みのデータを作り直す)
+    private static final int SCHEMA_VERSION = 3;
+
+    // 管理者とする従業員の間隔(社員番号1と、以降20人に1人)
+    private static final int ADMIN_INTERVAL = 20;
+
+    private static final String[] FAMILY_NAMES = { "佐藤", "鈴木", "高橋", "田中", "伊藤", "渡辺", "山本", "中村", "小林", "加藤",
+            "吉田", "山田", "佐々木", "山口", "松本", "井上", "木村", "林", "斎藤", "清水" };
+    private static final String[] GIVEN_NAMES = { "太郎", "花子", "一郎", "美咲", "健太", "陽子", "大輔", "彩", "翔", "由美",
+            "直樹", "恵", "拓也", "真由美", "誠" };
+
+    private static final String[] TOPICS = { "顧客訪問", "定例会議", "資料作成", "見積対応", "システム保守", "研修受講", "企画検討",
+            "問い合わせ対応", "テスト実施", "設計レビュー", "月次報告", "新規案件", "障害対応", "進捗確認", "契約更新" };
+    private static final String[] TITLE_SUFFIXES = { "", "について", "の進捗", "の対応", "の報告", "と今後の予定" };
+    private static final String[] CLIENTS = { "株式会社サンプル商事", "東西物産株式会社", "みなと電機株式会社", "有限会社あおば企画",
+            "北斗システム株式会社" };
+
+    private static final String[] SENTENCES = { "本日は顧客先での打ち合わせと資料作成を行いました。", "午前中は定例会議に参加し、進捗状況を共有しました。",
+            "午後は見積書の修正対応と問い合わせへの回答を実施しました。", "明日は提案内容の最終確認を行う予定です。",
+            "先方の担当者から要件の追加について相談があり、持ち帰って検討することにしました。", "作業は概ね予定どおりに進んでいます。",
+            "テスト環境で発生していた不具合の原因を調査し、設定の誤りであることを確認しました。", "来週のリリースに向けて手順書を更新しました。",
+            "新人向けの研修資料の作成を進め、全体の半分程度まで完成しました。", "課題管理表を更新し、期限の近い項目を関係者に連絡しました。",
+            "移動中にメールの確認と返信を行いました。", "次回の打ち合わせは来週の火曜日に決まりました。",
+            "お客様から前回の対応についてお礼の連絡をいただきました。", "残作業は明日の午前中に対応します。",
+            "チーム内で作業の分担を見直し、担当を一部変更しました。", "特に問題はありません。" };
+
+    private final int employeeCount;
+    private final int years;
+    private final double deletedRatio;
+
+    SyntheticDataGenerator(int employeeCount, int years, double deletedRatio) {
+        if (deletedRatio < 0 || deletedRatio > 1) {
+            throw new IllegalArgumentException("論理削除の割合は0以上1以下で指定してください: " + deletedRatio);
+        }
+        this.employeeCount = employeeCount;
+        this.years = years;
+        this.deletedRatio = deletedRatio;
+    }
+
+    // 投入するデータの条件(投入済みのデータとの比較に使う)
+    String description() {
+        return "employees=" + employeeCount + ",years=" + years + ",deletedRatio=" + deletedRatio + ",seed=" + SEED
+                + ",schema=" + SCHEMA_VERSION;
+    }
+
+    // 同じ条件のデータが投入済みであればtrue(アプリケーションの起動前に確認する)
+    boolean isGenerated(String url, String username, String password) {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT description FROM " + DATASET_TABLE)) {
+            return resultSet.next() && description().equals(resultSet.getString(1));
+        } catch (SQLException e) {
+            // テーブルがない(未投入)
+            return false;
+        }
+    }
+
+    // 従業員と日報を投入する(テーブルは空であること)
+    // 投入した日報の件数を返す
+    long generate(ApplicationContext context) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + DATASET_TABLE);
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        String password = context.getBean(PasswordEncoder.class).encode(BenchmarkContext.PASSWORD);
+        List<String> codes = new ArrayList<>();
+        for (int i = 1; i <= employeeCount; i++) {
+            codes.add(String.valueOf(i));
+        }
+        insertEmployees(jdbcTemplate, codes, password, random);
+        long reportCount = insertReports(jdbcTemplate, context.getBean(ReportContentCodec.class), codes, 1, deletedRatio,
+                random);
+
+        // 日報IDの採番を投入したIDより後ろから開始する(まとめて採番する件数分の余裕を空ける)
+        long nextId = reportCount + 101;
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("MySQL".equals(database)) {
+            // MySQLではシーケンスの代わりにテーブルで採番される
+            jdbcTemplate.update("UPDATE reports_seq SET next_val = ?", nextId);
+        } else {
+            jdbcTemplate.execute("ALTER SEQUENCE reports_seq RESTART WITH " + nextId);
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + DATASET_TABLE + " (description VARCHAR(200) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO " + DATASET_TABLE + " (description) VALUES (?)", description());
+        return reportCount;
+    }
+
+    // 従業員1人分の日報の件数(条件と同じ年数分)で、従業員を追加する(従業員削除の計測用)
+    // 日報のIDはfirstIdから連番で振る
+    int addEmployee(ApplicationContext context, String code, String password, int firstId) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        SplittableRandom random = new SplittableRandom(SEED + firstId);
+        insertEmployees(jdbcTemplate, List.of(code), password, random);
+        return (int) insertReports(jdbcTemplate, context.getBean(ReportContentCodec.class), List.of(code), firstId, 0,
+                random);
+    }
+
+    private static void insertEmployees(JdbcTemplate jdbcTemplate, List<String> codes, String password,
+            SplittableRandom random) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> employees = new ArrayList<>();
+        for (int i = 0; i < codes.size(); i++) {
+            String code = codes.get(i);
+            boolean admin = BenchmarkContext.ADMIN_CODE.equals(code) || (i + 1) % ADMIN_INTERVAL == 0;
+            String name = pick(FAMILY_NAMES, random) + "　" + pick(GIVEN_NAMES, random);
+            employees.add(new Object[] { code, name, admin ? "ADMIN" : "GENERAL", password, now, now });
+            if (employees.size() == BATCH_SIZE) {
+                batchInsertEmployees(jdbcTemplate, employees);
+                employees.clear();
+            }
+        }
+        batchInsertEmployees(jdbcTemplate, employees);
+    }
+
+    private static void batchInsertEmployees(JdbcTemplate jdbcTemplate, List<Object[]> employees) {
+        if (!employees.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO employees(code, name, role, password, delete_flg, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, 0, ?, ?)", employees);
+        }
+    }
+
+    // 古い日付から順に、日付ごとに全従業員分の日報を投入する
+    private long insertReports(JdbcTemplate jdbcTemplate, ReportContentCodec codec, List<String> codes, int firstId,
+            double ratio, SplittableRandom random) {
+        LocalDate today = LocalDate.now();
+        int id = firstId;
+        List<Object[]> reports = new ArrayList<>();
+        for (LocalDate date = today.minusYears(years).plusDays(1); !date.isAfter(today); date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            for (String code : codes) {
+                // 登録日時は当日の夕方、更新日時は登録の数分～数時間後(翌日になる場合もある)
+                LocalDateTime createdAt = date.atTime(LocalTime.of(17, 0)).plusMinutes(random.nextInt(180));
+                LocalDateTime updatedAt = random.nextInt(10) == 0 ? createdAt.plusMinutes(5 + random.nextInt(900))
+                        : createdAt;
+                boolean deleted = random.nextDouble() < ratio;
+                reports.add(new Object[] { id++, date, title(random), content(random), code, deleted ? 1 : 0,
+                        Timestamp.valueOf(createdAt), Timestamp.valueOf(updatedAt) });
+                if (reports.size() == BATCH_SIZE) {
+                    batchInsertReports(jdbcTemplate, codec, reports);
+                    reports.clear();
+                }
+            }
+        }
+        batchInsertReports(jdbcTemplate, codec, reports);
+        return id - firstId;
+    }
+
+    // 日報(id, 日付, タイトル, 内容, 社員番号, 削除フラグ, 登録日時, 更新日時)を日報テーブルと内容テーブルに投入する
+    // 内容はアプリケーションと同じ形式(ReportContentCodec)に変換して投入する
+    private static void batchInsertReports(JdbcTemplate jdbcTemplate, ReportContentCodec codec, List<Object[]> reports) {
+        if (!reports.isEmpty()) {
+            List<Object[]> metadata = new ArrayList<>(reports.size());
+            List<Object[]> contents = new ArrayList<>(reports.size());
+            for (Object[] report : reports) {
+                metadata.add(new Object[] { report[0], report[1], report[2], report[4], report[5], report[6], report[7] });
+                contents.add(new Object[] { report[0], codec.encode((String) report[3]) });
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO reports(id, report_date, title, employee_code, delete_flg, "
+                    + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", metadata);
+            jdbcTemplate.batchUpdate("INSERT INTO report_contents(report_id, content) VALUES (?, ?)", contents);
+        }
+    }
+
+    // タイトル(多くは10～20文字程度、一部は取引先名を含む長めのもの。上限100文字)
+    static String title(SplittableRandom random) {
+        StringBuilder title = new StringBuilder(pick(TOPICS, random));
+        if (random.nextInt(3) == 0) {
+            title.append("・").append(pick(TOPICS, random));
+        }
+        title.append(pick(TITLE_SUFFIXES, random));
+        if (random.nextInt(10) == 0) {
+            title.append("（").append(pick(CLIENTS, random)).append("様）");
+        }
+        return title.length() > 100 ? title.substring(0, 100) : title.toString();
+    }
+
+    // 内容(6割は100～300文字、3割は300～500文字、1割は上限に近い500～600文字)
+    static String content(SplittableRandom random) {
+        int percentile = random.nextInt(100);
+        int length = percentile < 60 ? 100 + random.nextInt(200)
+                : percentile < 90 ? 300 + random.nextInt(200) : 500 + random.nextInt(101);
+        StringBuilder content = new StringBuilder(length + 60);
+        while (content.length() < length) {
+            content.append(pick(SENTENCES, random));
+        }
+        content.setLength(length);
+        return content.toString();
+    }
+
+    private static String pick(String[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,59 @@
+package com.techacademy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.techacademy.service.EmployeeCache;
+import com.techacademy.service.UserDetailService;
+
+// ログイン時の従業員読み込みの計測(キャッシュヒット時・ミス時)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private UserDetailService userDetailService;
+    private EmployeeCache employeeCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, 100, 0);
+        userDetailService = context.getBean(UserDetailService.class);
+        employeeCache = context.getBean(EmployeeCache.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDetails loadCached() {
+        return userDetailService.loadUserByUsername(BenchmarkContext.ADMIN_CODE);
+    }
+
+    @Benchmark
+    public UserDetails loadUncached() {
+        employeeCache.invalidate(BenchmarkContext.ADMIN_CODE);
+        return userDetailService.loadUserByUsername(BenchmarkContext.ADMIN_CODE);
+    }
+}
@@ -1,18 +1,30 @@
 package com.techacademy;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import com.techacademy.security.OffloadedAuthenticationProvider;
+import com.techacademy.security.OffloadedPasswordEncoder;
+import com.techacademy.service.UserDetailService;
 
 @Configuration
 public class SecurityConfig {
     /** 認証・認可設定 */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, Environment environment) throws Exception {
         http.formLogin(login -> login.loginProcessingUrl("/login") // 従業員番号・パスワードの送信先
                 .loginPage("/login") // ログイン画面
                 .defaultSuccessUrl("/") // ログイン成功後のリダイレクト先
@@ -21,14 +33,58 @@ public class SecurityConfig {
         ).logout(logout -> logout.logoutSuccessUrl("/login") // ログアウト後のリダイレクト先
         ).authorizeHttpRequests(
                 auth -> auth.requestMatchers(PathRequest.toStaticResources().atCommonLocations()).permitAll() // css等は未ログインでアクセス可
+                        .requestMatchers(EndpointRequest.to("health")).permitAll() // ヘルスチェックは未ログインでアクセス可
+                        .requestMatchers(new AndRequestMatcher(EndpointRequest.to("prometheus"),
+                                managementPortRequest(environment))).permitAll() // メトリクスは管理用ポートのみ未ログインでアクセス可
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasAnyAuthority("ADMIN") // 画面と同じポートでは管理者のみ
+                        .requestMatchers("/reports/import").hasAnyAuthority("ADMIN") // 日報の一括登録は管理者のみ
+                        .requestMatchers("/reports/summary/**").hasAnyAuthority("ADMIN") // 日報件数の集計は管理者のみ
                         .requestMatchers("/employees/**").hasAnyAuthority("ADMIN").anyRequest().authenticated()); // その他はログイン必要
 
         return http.build();
     }
 
+    /** 管理用ポートへのリクエスト */
+    // management.server.portで画面と別のポートを指定した場合のみ(指定しない場合は常に一致しない)
+    // 管理用ポートはファイアウォール等で監視サーバーからのみ接続できるようにしておくこと
+    private static RequestMatcher managementPortRequest(Environment environment) {
+        Integer port = environment.getProperty("management.server.port", Integer.class);
+        if (ManagementPortType.get(environment) != ManagementPortType.DIFFERENT || port == null || port <= 0) {
+            return request -> false;
+        }
+        return request -> request.getLocalPort() == port;
+    }
+
+    /** 認証・認可の対象外とするパス */
+    // css・jsはログイン状態によらず同じ内容のため、セッションの読み込みなどのフィルタ処理を行わない
+    @Bean
+    public WebSecurityCustomizer webSecurityCustomizer() {
+        return web -> web.ignoring().requestMatchers(StaticResourceConfiguration.pathPatterns());
+    }
+
     /** ハッシュ化したパスワードの比較に使用する */
+    // 強度の指定がない場合は、起動時に1回のハッシュ化が目標時間に収まる強度を計測して決める
+    // スレッド数の指定がない場合はCPUコア数
+    @Bean
+    public OffloadedPasswordEncoder passwordEncoder(@Value("${app.password.strength:0}") int strength,
+            @Value("${app.password.target-hash-time:250ms}") Duration targetHashTime,
+            @Value("${app.password.encoder-threads:0}") int threads,
+            @Value("${app.password.encoder-queue-capacity:100}") int queueCapacity) {
+        int encoderStrength = strength > 0 ? Math.max(strength, OffloadedPasswordEncoder.MIN_STRENGTH)
+                : OffloadedPasswordEncoder.calibrate(targetHashTime);
+        int encoderThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new OffloadedPasswordEncoder(encoderStrength, encoderThreads, queueCapacity);
+    }
+
+    /** ログイン処理 */
+    // パスワードの照合待ちが上限を超えた場合はログイン失敗とする
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public DaoAuthenticationProvider authenticationProvider(UserDetailService userDetailService,
+            OffloadedPasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new OffloadedAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(userDetailService);
+        // 保存済みのハッシュの強度が低い場合はログイン成功時に再ハッシュ化する
+        provider.setUserDetailsPasswordService(userDetailService);
+        return provider;
     }
 }
\ No newline at end of file
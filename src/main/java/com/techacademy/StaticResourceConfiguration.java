@@ -0,0 +1,65 @@
+package com.techacademy;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+// css・jsの配信設定
+// ・画面のURL(th:href="@{/css/...}"など)はファイルの内容のハッシュ値を付けたものに変換する(bootstrap.min-<ハッシュ値>.css)
+// ・内容が変わればURLも変わるため、ハッシュ値付きのURLはブラウザに変更されないもの(immutable)として1年間キャッシュさせる
+// ・ハッシュ値のないURL(bootstrap.min.css)は内容が変わっても同じURLのため、毎回更新日時で確認させる(変更がなければ304)
+// ・ビルド時に作成した圧縮済みのファイル(.br・.gz)があれば、ブラウザが対応している形式で返す
+@Configuration
+public class StaticResourceConfiguration implements WebMvcConfigurer {
+
+    // 静的ファイルのディレクトリ(/css/** → classpath:/static/css/ など)
+    private static final String[] DIRECTORIES = { "css", "js" };
+
+    // ハッシュ値(MD5)付きのファイル名(ディレクトリ直下のファイルのみ 下位のディレクトリはハッシュ値のないURLと同じ扱い)
+    // ハッシュ値が内容と一致しない場合は404となり、キャッシュさせない
+    private static final String VERSIONED_FILE = "{file:.+-[0-9a-f]{32}\\..+}";
+
+    private static final Duration MAX_AGE = Duration.ofDays(365);
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : DIRECTORIES) {
+            // より具体的なハッシュ値付きのパターンが優先される
+            addResourceHandler(registry, "/" + directory + "/" + VERSIONED_FILE, directory,
+                    CacheControl.maxAge(MAX_AGE).cachePublic().immutable());
+            addResourceHandler(registry, "/" + directory + "/**", directory, CacheControl.noCache().cachePublic());
+        }
+    }
+
+    private static void addResourceHandler(ResourceHandlerRegistry registry, String pathPattern, String directory,
+            CacheControl cacheControl) {
+        registry.addResourceHandler(pathPattern)
+                .addResourceLocations("classpath:/static/" + directory + "/")
+                .setCacheControl(cacheControl)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    // 認証の対象外とする静的ファイルのパス
+    public static String[] pathPatterns() {
+        String[] patterns = new String[DIRECTORIES.length];
+        for (int i = 0; i < DIRECTORIES.length; i++) {
+            patterns[i] = "/" + DIRECTORIES[i] + "/**";
+        }
+        return patterns;
+    }
+
+    // テンプレートで作成したURLをハッシュ値付きのものに変換する
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+}
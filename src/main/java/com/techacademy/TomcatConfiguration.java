@@ -2,13 +2,24 @@ package com.techacademy; // ご自身の環境に合わせてください
 
 import org.apache.catalina.connector.Connector;
 import org.apache.coyote.ajp.AjpNio2Protocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 @Configuration
 public class TomcatConfiguration implements WebServerFactoryCustomizer<TomcatServletWebServerFactory> {
 
+    private final Environment environment;
+
+    @Autowired
+    public TomcatConfiguration(Environment environment) {
+        this.environment = environment;
+    }
+
     @Override
     public void customize(TomcatServletWebServerFactory factory) {
         // Tomcatとの通信手段にAJPを追加
@@ -26,6 +37,12 @@ public class TomcatConfiguration implements WebServerFactoryCustomizer<TomcatSer
         AjpNio2Protocol protocol = (AjpNio2Protocol) connector.getProtocolHandler();
         protocol.setSecretRequired(false);
 
+        // 仮想スレッドが有効(spring.threads.virtual.enabled=true かつ Java 21以上)の場合は、
+        // AJPのリクエスト処理も仮想スレッドで行う(Spring Bootの設定はHTTPのコネクタにしか適用されないため)
+        if (Threading.VIRTUAL.isActive(environment)) {
+            protocol.setExecutor(new VirtualThreadExecutor("tomcat-ajp-handler-"));
+        }
+
         return connector;
     }
 
@@ -0,0 +1,10 @@
+package com.techacademy.audit;
+
+import java.time.LocalDateTime;
+
+import com.techacademy.entity.AuditLog;
+
+// 書き込み待ちの監査ログ1件
+public record AuditEvent(LocalDateTime occurredAt, String actorCode, AuditLog.Action action,
+        AuditLog.TargetType targetType, String targetId) {
+}
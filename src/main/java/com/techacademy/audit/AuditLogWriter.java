@@ -0,0 +1,244 @@
+package com.techacademy.audit;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.techacademy.entity.AuditLog;
+
+// 監査ログの書き込み
+// ・日報・従業員の更新処理からはコミット後にリングバッファへ追加するのみで、DBへの書き込みを待たない
+// ・専用のスレッドが一定間隔(バッファにbatch-size件たまった場合はすぐ)にまとめてINSERTする
+//   (MySQLではrewriteBatchedStatements=trueで複数行のINSERT文に書き換えられる)
+// ・バッファに空きがない場合は、overflowの設定に従い空きができるまで待つ(BLOCK)か、破棄して件数を数える(DROP)
+//   BLOCKでもblock-timeoutを過ぎても空きができない場合は、更新処理を止め続けないよう破棄して件数を数える
+// ・書き込みに失敗した分は次回に再度書き込む(その間に追加された分はバッファにたまる)
+//   失敗した回数を数え、max-attempts回続けて失敗した分は破棄して件数を数える(DBの障害中に同じ分を書き続けない)
+// ・終了時はバッファに残っている分を書き込んでから停止する
+@Component
+public class AuditLogWriter implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    // バッファに空きがない場合の動作
+    public static enum Overflow {
+        BLOCK, DROP
+    }
+
+    private static final String INSERT_QUERY = "INSERT INTO audit_logs(occurred_at, actor_code, action, target_type, target_id) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    // BLOCKの場合に空きを確認する間隔
+    private static final long BLOCK_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // 終了時に書き込みスレッドの停止を待つ時間
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditRingBuffer buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Overflow overflow;
+    private final long blockTimeoutNanos;
+    private final int maxAttempts;
+
+    // 破棄した件数・書き込んだ件数・書き込みに失敗した回数
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    // 書き込み中の分(書き込みに失敗した場合は次回に再度書き込む。書き込みスレッドのみが参照する)
+    private final List<AuditEvent> batch = new ArrayList<>();
+
+    // 書き込み中の分が続けて失敗した回数(書き込みスレッドのみが参照する)
+    private int attempts;
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    @Autowired
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+            @Value("${app.audit.buffer-capacity:8192}") int bufferCapacity,
+            @Value("${app.audit.batch-size:500}") int batchSize,
+            @Value("${app.audit.flush-interval:1s}") Duration flushInterval,
+            @Value("${app.audit.overflow:BLOCK}") Overflow overflow,
+            @Value("${app.audit.block-timeout:5s}") Duration blockTimeout,
+            @Value("${app.audit.max-attempts:60}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new AuditRingBuffer(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflow = overflow;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.maxAttempts = maxAttempts;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("audit-log-writer-");
+        threadFactory.setDaemon(true);
+        this.writerThread = threadFactory.newThread(this::run);
+        this.writerThread.start();
+    }
+
+    // コミット後に監査ログを追加する(トランザクション外の場合はすぐに追加する。ロールバックした場合は追加しない)
+    // 操作した従業員は、呼び出したスレッドでログインしている従業員とする
+    public void publishAfterCommit(AuditLog.Action action, AuditLog.TargetType targetType, Object targetId) {
+        AuditEvent event = new AuditEvent(LocalDateTime.now(), currentEmployeeCode(), action, targetType,
+                String.valueOf(targetId));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+
+    // バッファに追加する(空きがない場合はoverflowの設定に従う)
+    void publish(AuditEvent event) {
+        long deadline = 0;
+        while (!buffer.offer(event)) {
+            if (overflow == Overflow.DROP || !running || Thread.currentThread().isInterrupted()) {
+                droppedCount.increment();
+                return;
+            }
+            if (deadline == 0) {
+                deadline = System.nanoTime() + blockTimeoutNanos;
+            } else if (System.nanoTime() - deadline >= 0) {
+                droppedCount.increment();
+                return;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    // 書き込み待ちの件数
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    // バッファに空きがなく破棄した件数
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    // 書き込んだ件数
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    // 書き込みに失敗した回数
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    // 書き込みスレッドを停止し、バッファに残っている分を書き込む
+    // 書き込めなかった分は破棄した件数に数える
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (writerThread.isAlive()) {
+            return;
+        }
+        int written;
+        do {
+            written = writeBatch();
+        } while (written > 0);
+        droppedCount.add(batch.size() + buffer.size());
+        batch.clear();
+    }
+
+    private void run() {
+        boolean failed = false;
+        while (running) {
+            if (failed) {
+                // 書き込みに失敗した場合は、空きを待つ更新処理から起こされても次の間隔まで書き込まない
+                // (DBの障害中に書き込みを繰り返さない)
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                long remaining;
+                while (running && (remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(remaining);
+                }
+            } else {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+            // batch-size件に満たない(バッファが空になった)場合・書き込みに失敗した場合は次の間隔まで待つ
+            int written;
+            do {
+                written = writeBatch();
+            } while (running && written == batchSize);
+            failed = written < 0;
+        }
+    }
+
+    // 最大batch-size件を書き込む(書き込んだ件数を返す。失敗した場合は-1)
+    // max-attempts回続けて失敗した場合は、書き込み中の分を破棄して件数を数える
+    private int writeBatch() {
+        buffer.drain(batch::add, batchSize - batch.size());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (AuditEvent event : batch) {
+            args.add(new Object[] { Timestamp.valueOf(event.occurredAt()), event.actorCode(), event.action().name(),
+                    event.targetType().name(), event.targetId() });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_QUERY, args);
+        } catch (DataAccessException e) {
+            failedCount.increment();
+            attempts++;
+            if (attempts >= maxAttempts) {
+                logger.error("監査ログの書き込みに{}回続けて失敗したため、{}件を破棄します", attempts, batch.size(), e);
+                droppedCount.add(batch.size());
+                batch.clear();
+                attempts = 0;
+            } else {
+                logger.warn("監査ログの書き込みに失敗しました({}件・{}回目)", batch.size(), attempts, e);
+            }
+            return -1;
+        }
+        attempts = 0;
+        int count = batch.size();
+        writtenCount.add(count);
+        batch.clear();
+        return count;
+    }
+
+    // ログインしている従業員の社員番号(ログインしていない場合はnull)
+    private static String currentEmployeeCode() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetails userDetails) {
+            return userDetails.getUsername();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+package com.techacademy.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// 複数のスレッドから追加し、1つのスレッドで取り出す固定長のリングバッファ(ロックを使わない)
+// 各枠に番号を持たせ、追加するスレッドは書き込む位置をCASで確保してから要素を置き、番号を進めて取り出し可能にする
+// 取り出したスレッドは枠を空にして番号を1周分進め、次の周回で追加できるようにする
+class AuditRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final AuditEvent[] events;
+    // 枠ごとの番号(位置と等しい場合は追加可能、位置+1の場合は取り出し可能)
+    private final AtomicLongArray sequences;
+
+    // 次に追加する位置・次に取り出す位置
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    // 容量は2以上の2のべき乗に切り上げる
+    // (1枠のみの場合は、取り出し可能な番号と次の周回で追加可能な番号が等しくなり、取り出し前の要素が上書きされる)
+    AuditRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("容量は1以上2^30以下で指定してください: " + capacity);
+        }
+        this.capacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.events = new AuditEvent[this.capacity];
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // 追加する(空きがない場合はfalse)
+    boolean offer(AuditEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // 1周前の要素がまだ取り出されていない
+                return false;
+            } else {
+                // 他のスレッドが先に確保した
+                position = tail.get();
+            }
+        }
+    }
+
+    // 最大limit件を追加された順に取り出す(取り出すスレッドは1つのみ)
+    int drain(Consumer<AuditEvent> consumer, int limit) {
+        long position = head;
+        int count = 0;
+        while (count < limit) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            AuditEvent event = events[index];
+            events[index] = null;
+            sequences.lazySet(index, position + capacity);
+            position++;
+            count++;
+            consumer.accept(event);
+        }
+        head = position;
+        return count;
+    }
+
+    // 取り出し待ちの件数(他のスレッドの追加・取り出しと同時に呼ばれた場合は概数)
+    int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,147 @@
+package com.techacademy.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+// 日報の内容の保存形式(圧縮・展開)
+// ・UTF-8でmin-bytes以上の内容は、日報によく使われる表現を集めた辞書を使ってDeflateで圧縮する
+//   (辞書の表現を参照できるため、数百バイトの短い文章でも圧縮が効く)
+// ・min-bytes未満の内容・圧縮しても小さくならない内容はUTF-8のまま保存する
+// ・圧縮した内容は先頭に目印(0xFF)と辞書の番号を付ける
+//   UTF-8の文字列は0xFFで始まらないため、圧縮を導入する前に保存した行もそのまま読める
+// ・辞書を作り直す場合は番号を上げたファイルを追加してDICTIONARY_IDを変更する(古い辞書で圧縮した行を読むため、以前の辞書も残す)
+@Component
+public class ReportContentCodec {
+
+    // 圧縮した内容の先頭の目印
+    public static final byte COMPRESSED_MARKER = (byte) 0xFF;
+
+    // 圧縮に使う辞書の番号(compression/report-content-dictionary-<番号>.txt)
+    public static final int DICTIONARY_ID = 1;
+
+    // 速度を優先した圧縮レベル(日報は短いため、レベルを上げても圧縮後の大きさはほとんど変わらない)
+    private static final int LEVEL = Deflater.BEST_SPEED;
+
+    // 圧縮する内容の大きさの下限(目印・辞書の番号と1バイト以上の圧縮データが元の大きさに収まる必要がある)
+    private static final int MIN_COMPRESSIBLE_BYTES = 3;
+
+    // 展開時の読み込み単位
+    private static final int BUFFER_SIZE = 4096;
+
+    private final boolean enabled;
+    private final int minBytes;
+
+    // 読み込み済みの辞書(番号 → 内容)
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+    // 圧縮・展開の作業領域は作成の負荷が高いため使い回す
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+    public ReportContentCodec(@Value("${app.report-content.compression.enabled:true}") boolean enabled,
+            @Value("${app.report-content.compression.min-bytes:256}") int minBytes) {
+        this.enabled = enabled;
+        // min-bytesに0・1などの小さい値が指定された場合も、目印を書き込めない長さは圧縮しない
+        this.minBytes = Math.max(minBytes, MIN_COMPRESSIBLE_BYTES);
+        // 辞書がない場合は起動時にエラーとする
+        dictionary(DICTIONARY_ID);
+    }
+
+    // 保存する形式に変換する
+    public byte[] encode(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] plain = content.getBytes(StandardCharsets.UTF_8);
+        if (!enabled || plain.length < minBytes) {
+            return plain;
+        }
+
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(LEVEL, true);
+        }
+        try {
+            deflater.setDictionary(dictionary(DICTIONARY_ID));
+            deflater.setInput(plain);
+            deflater.finish();
+
+            // 元の大きさ以上になる場合は途中で打ち切り、UTF-8のまま保存する
+            byte[] buffer = new byte[plain.length];
+            buffer[0] = COMPRESSED_MARKER;
+            buffer[1] = (byte) DICTIONARY_ID;
+            int length = 2;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return deflater.finished() && length < plain.length ? Arrays.copyOf(buffer, length) : plain;
+        } finally {
+            deflater.reset();
+            deflaters.offer(deflater);
+        }
+    }
+
+    // 保存した形式から元の内容に戻す
+    public String decode(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length == 0 || stored[0] != COMPRESSED_MARKER) {
+            return new String(stored, StandardCharsets.UTF_8);
+        }
+        if (stored.length < 2) {
+            throw new IllegalStateException("圧縮した日報の内容が壊れています");
+        }
+
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            inflater.setDictionary(dictionary(stored[1] & 0xFF));
+            inflater.setInput(stored, 2, stored.length - 2);
+            ByteArrayOutputStream content = new ByteArrayOutputStream(stored.length * 3);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("圧縮した日報の内容が途中で終わっています");
+                }
+                content.write(buffer, 0, length);
+            }
+            return content.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("圧縮した日報の内容が壊れています", e);
+        } finally {
+            inflater.reset();
+            inflaters.offer(inflater);
+        }
+    }
+
+    // 指定した番号の辞書(初回のみクラスパスから読み込む)
+    private byte[] dictionary(int id) {
+        return dictionaries.computeIfAbsent(id, key -> {
+            ClassPathResource resource = new ClassPathResource("compression/report-content-dictionary-" + key + ".txt");
+            try (InputStream in = resource.getInputStream()) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException("日報の内容の圧縮用辞書を読み込めません: " + resource.getPath(), e);
+            }
+        });
+    }
+}
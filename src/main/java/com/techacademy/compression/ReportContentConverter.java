@@ -0,0 +1,29 @@
+package com.techacademy.compression;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// 日報の内容とDBの保存形式(ReportContentCodec)との変換
+// HibernateがSpringのBeanとして作成するため、コンストラクタで設定済みのReportContentCodecを受け取る
+@Converter
+public class ReportContentConverter implements AttributeConverter<String, byte[]> {
+
+    private final ReportContentCodec reportContentCodec;
+
+    @Autowired
+    public ReportContentConverter(ReportContentCodec reportContentCodec) {
+        this.reportContentCodec = reportContentCodec;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        return reportContentCodec.encode(content);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        return reportContentCodec.decode(stored);
+    }
+}
@@ -32,6 +32,9 @@ public class ErrorMessage {
                     new ArrayList<String>(Arrays.asList("deleteError", "ログイン中の従業員を削除することは出来ません")));
             // 同一日付チェック用エラーメッセージ
             put(ErrorKinds.DATECHECK_ERROR, new ArrayList<String>(Arrays.asList("reportDateError", "既に登録されている日付です")));
+            // 集計年の範囲チェック用エラーメッセージ
+            put(ErrorKinds.YEARCHECK_ERROR,
+                    new ArrayList<String>(Arrays.asList("yearError", "年は1年から9999年の範囲で指定してください")));
         }
     };
 
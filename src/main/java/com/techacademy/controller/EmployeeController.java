@@ -1,7 +1,5 @@
 package com.techacademy.controller;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -14,15 +12,15 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.techacademy.constants.ErrorKinds;
 import com.techacademy.constants.ErrorMessage;
 
 import com.techacademy.entity.Employee;
-import com.techacademy.entity.Report;
 import com.techacademy.service.EmployeeService;
-import com.techacademy.service.ReportService;
 import com.techacademy.service.UserDetail;
+import com.techacademy.util.HttpCacheUtils;
 
 @Controller
 @RequestMapping("employees")
@@ -35,9 +33,6 @@ public class EmployeeController {
         this.employeeService = employeeService;
     }
 
-    @Autowired
-    private ReportService reportService;
-
     // 従業員一覧画面
     @GetMapping
     public String list(Model model) {
@@ -50,7 +45,19 @@ public class EmployeeController {
 
     // 従業員詳細画面
     @GetMapping(value = "/{code}/")
-    public String detail(@PathVariable String code, Model model) {
+    public String detail(@PathVariable String code, Model model, ServletWebRequest request) {
+
+        // 従業員の更新日時から、ブラウザの画面が最新であれば描画せず304を返す
+        // (画面と同じくキャッシュから取得するため、判定のためのDBアクセスは発生しない)
+        Employee employee = employeeService.findByCode(code);
+        if (employee != null && HttpCacheUtils.checkNotModified(request, employee.getUpdatedAt())) {
+            return null;
+        }
+        return showDetail(code, model);
+    }
+
+    // 従業員詳細画面の描画(削除エラー時にも使用)
+    private String showDetail(String code, Model model) {
 
         model.addAttribute("employee", employeeService.findByCode(code));
         return "employees/detail";
@@ -109,21 +116,13 @@ public class EmployeeController {
     @PostMapping(value = "/{code}/delete")
     public String delete(@PathVariable String code, @AuthenticationPrincipal UserDetail userDetail, Model model) {
 
+        // 従業員に紐づく日報も合わせて論理削除される
         ErrorKinds result = employeeService.delete(code, userDetail);
 
         if (ErrorMessage.contains(result)) {
             model.addAttribute(ErrorMessage.getErrorName(result), ErrorMessage.getErrorValue(result));
             model.addAttribute("employee", employeeService.findByCode(code));
-            return detail(code, model);
-        }
-
-        // 削除対象の従業員（employee）に紐づいている、日報のリスト（reportList）を取得
-        List<Report> reportList = reportService.findByEmployeeCode(code);
-
-        // 日報のリスト（reportList）を拡張for文を使って繰り返し
-        for (Report report : reportList) {
-            // 日報（report）のIDを指定して、日報情報を削除
-            reportService.delete(report.getId());
+            return showDetail(code, model);
         }
 
         return "redirect:/employees";
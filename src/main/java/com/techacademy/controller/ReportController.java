@@ -1,12 +1,25 @@
 package com.techacademy.controller;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -17,27 +30,57 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.techacademy.constants.ErrorKinds;
 import com.techacademy.constants.ErrorMessage;
+import com.techacademy.dto.ReportImportResult;
+import com.techacademy.dto.ReportPage;
+import com.techacademy.dto.ReportSearchPage;
+import com.techacademy.dto.ReportVersion;
 import com.techacademy.entity.Employee;
 import com.techacademy.entity.Report;
+import com.techacademy.entity.ReportDraft;
 import com.techacademy.service.ReportService;
 import com.techacademy.service.EmployeeService;
+import com.techacademy.service.ReportDraftService;
+import com.techacademy.service.ReportImportService;
+import com.techacademy.service.ReportSummaryService;
 import com.techacademy.service.UserDetail;
+import com.techacademy.util.HttpCacheUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import jakarta.validation.groups.Default;
+
 @Controller
 @RequestMapping("reports")
 public class ReportController {
 
+    // 日報一覧の1ページあたりの件数(既定値・上限)
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // 月別件数画面で指定できる年の範囲(日付の入力欄と同じ)
+    private static final int MIN_SUMMARY_YEAR = 1;
+    private static final int MAX_SUMMARY_YEAR = 9999;
+
     private final ReportService reportService;
     private final EmployeeService employeeService;
+    private final ReportImportService reportImportService;
+    private final ReportSummaryService reportSummaryService;
+    private final ReportDraftService reportDraftService;
 
     @Autowired
-    public ReportController(ReportService reportService, EmployeeService employeeService) {
+    public ReportController(ReportService reportService, EmployeeService employeeService,
+            ReportImportService reportImportService, ReportSummaryService reportSummaryService,
+            ReportDraftService reportDraftService) {
         this.reportService = reportService;
         this.employeeService = employeeService;
+        this.reportImportService = reportImportService;
+        this.reportSummaryService = reportSummaryService;
+        this.reportDraftService = reportDraftService;
     }
 
     // 日報新規登録画面
@@ -47,38 +90,42 @@ public class ReportController {
 
         report.setEmployeeCode(employeeCode); // ログインユーザーの社員番号をセット
 
+        // 入力途中の下書きがあれば復元する(入力エラーで戻った場合は入力内容をそのまま表示する)
+        if (report.getTitle() == null && report.getContent() == null) {
+            ReportDraft draft = reportDraftService.findLatest(employeeCode, null);
+            if (draft != null) {
+                report.setReportDate(draft.getReportDate());
+                report.setTitle(draft.getTitle());
+                report.setContent(draft.getContent());
+                model.addAttribute("draftRestored", true);
+            }
+        }
+
         Employee employee = employeeService.findByCode(employeeCode);
         if (employee != null) {
             model.addAttribute("employeeName", employee.getName());
         }
 
         model.addAttribute("report", report);
+        // 下書きの入力を始めた日時(この後に同じ日付の日報が登録された場合、この画面の下書きは保存しない)
+        model.addAttribute("draftSince", LocalDateTime.now());
         return "reports/new";
     }
 
  // 日報新規登録処理
     @PostMapping(value = "/add")
-    public String add(@Validated Report report, BindingResult res, Model model) {
+    public String add(@Validated({ Default.class, Report.Input.class }) Report report, BindingResult res, Model model) {
 
         // 入力チェック
         if (res.hasErrors()) {
             return create(report, model); // 入力エラーがある場合、createメソッドにreportを渡して戻る
         }
 
-        // 現在のログインユーザーを取得
-        String currentUser = reportService.getCurrentEmployeeCode();
-
-        // 指定された日付と現在のログインユーザーの日報データが存在するか確認
-        boolean reportExists = reportService.existsByEmployeeCodeAndReportDate(currentUser, report.getReportDate());
-
-        //Trueだった場合
-        if (reportExists) {
-            model.addAttribute("errorMessage", "既に登録されている日付です。");
-            return create(report, model); // エラーメッセージを設定して戻る
-        }
+        // 日報は常にログインユーザーのものとして登録する
+        report.setEmployeeCode(reportService.getCurrentEmployeeCode());
 
-        // 論理削除を行った従業員番号を指定すると例外となるためtry~catchで対応
-        // (findByIdでは削除フラグがTRUEのデータが取得出来ないため)
+        // 同一日付の日報が既にある場合はDBの一意制約違反となるためtry~catchで対応
+        // (事前に存在チェックを行うと1往復多くなり、同時登録時の重複も防げないため)
         try {
             ErrorKinds result = reportService.save(report); // レポートを保存
 
@@ -88,61 +135,207 @@ public class ReportController {
             }
 
         } catch (DataIntegrityViolationException e) {
-            model.addAttribute(ErrorMessage.getErrorName(ErrorKinds.DUPLICATE_EXCEPTION_ERROR),
-                    ErrorMessage.getErrorValue(ErrorKinds.DUPLICATE_EXCEPTION_ERROR));
+            // 同一日付の重複以外の制約違反はエラー画面とする
+            if (!ReportService.isDuplicateDate(e)) {
+                throw e;
+            }
+            model.addAttribute(ErrorMessage.getErrorName(ErrorKinds.DATECHECK_ERROR),
+                    ErrorMessage.getErrorValue(ErrorKinds.DATECHECK_ERROR));
             return create(report, model); // エラーがある場合、createメソッドにreportを渡して戻る
         }
 
+        // 新規登録画面の下書きは不要になるため削除
+        reportDraftService.discard(report.getEmployeeCode(), null);
         return "redirect:/reports"; // 成功したらリダイレクト
     }
 
+    // 日報の下書きの自動保存(登録・更新画面から数秒ごとに送信される)
+    // 日付が未入力の場合・上限を超える長さの場合は保存しない
+    // sinceは画面を表示した日時(画面のURLに含めて送信される)
+    @PostMapping(value = "/draft")
+    public ResponseEntity<Void> saveDraft(
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate reportDate,
+            @RequestParam(required = false) Integer id, @RequestParam(defaultValue = "") String title,
+            @RequestParam(defaultValue = "") String content) {
+        if (reportDate == null || title.length() > ReportDraftService.MAX_TITLE_LENGTH
+                || content.length() > ReportDraftService.MAX_CONTENT_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        reportDraftService.save(reportService.getCurrentEmployeeCode(), reportDate, id, title, content, since);
+        return ResponseEntity.noContent().build();
+    }
+
     // 日報一覧画面
+    // afterDate/afterId を指定すると次ページ、beforeDate/beforeId を指定すると前ページを表示
     @GetMapping
-    public String list(Model model) {
+    public String list(@RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate afterDate,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate beforeDate,
+            @RequestParam(required = false) Integer beforeId, Model model) {
 
         String employeeCode = reportService.getCurrentEmployeeCode();
         // ログインユーザーの社員番号をセット
         Employee currentUser = employeeService.findByCode(employeeCode);
 
-        // 日報リストを宣言
-        List<Report> reportList;
+        // ページサイズを許容範囲に丸める
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
 
         // ログインユーザーが一般ユーザーの場合、自分の日報のみを取得
-        if (currentUser.getRole() == Employee.Role.GENERAL) {
-            //repositoryで定義しているので、以下のようなクエリが発行される
-            //SELECT * FROM reports WHERE employee_code = ? 結果これだけで希望のデータが取れる
-            reportList = reportService.findByEmployeeCode(currentUser.getCode());
+        // 管理者の場合は全ての日報を取得(社員番号にnullを指定)
+        String targetCode = currentUser.getRole() == Employee.Role.GENERAL ? currentUser.getCode() : null;
+
+        // 従業員テーブルを結合し、従業員名も含めて1ページ分だけを取得する
+        ReportPage page;
+        if (beforeDate != null && beforeId != null) {
+            page = reportService.findPage(targetCode, beforeDate, beforeId, true, pageSize);
         } else {
-            // 管理者の場合は全ての日報を取得
-            reportList = reportService.findAll();
+            page = reportService.findPage(targetCode, afterDate, afterId, false, pageSize);
         }
 
-        // 日報と従業員情報を紐づけたマップを用意
-        Map<Report, Employee> reportEmployeeMap = new HashMap<>();
+        // モデルにリストサイズ、日報のリスト、ページ情報を追加
+        model.addAttribute("listSize", page.rows().size());
+        model.addAttribute("reportList", page.rows());
+        model.addAttribute("page", page);
+        model.addAttribute("size", pageSize);
 
-        for (Report report : reportList) {
-            // 日報に関連する従業員を取得
-            Employee employee = employeeService.findByCode(report.getEmployeeCode());
-            // 日報と従業員情報をマップに追加
-            reportEmployeeMap.put(report, employee);
+        return "reports/list";
+    }
+
+    // 日報検索画面(タイトル・内容のキーワード検索 関連度順)
+    // 一覧と同じく、一般ユーザーは自分の日報のみ、管理者は全ての日報を検索する
+    @GetMapping(value = "/search")
+    public String search(@RequestParam(defaultValue = "") String q, @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size, Model model) {
+
+        Employee currentUser = employeeService.findByCode(reportService.getCurrentEmployeeCode());
+        String targetCode = currentUser.getRole() == Employee.Role.GENERAL ? currentUser.getCode() : null;
+
+        // ページサイズ・ページ番号を許容範囲に丸める
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int pageNumber = Math.max(page, 0);
+
+        ReportSearchPage result = q.isBlank() ? ReportSearchPage.empty(pageSize)
+                : reportService.search(q, targetCode, pageNumber, pageSize);
+
+        model.addAttribute("q", q);
+        model.addAttribute("result", result);
+        model.addAttribute("reportList", result.rows());
+
+        return "reports/search";
+    }
+
+    // 日報CSV出力(期間指定)
+    // 一覧と同じく、一般ユーザーは自分の日報のみ、管理者は全ての日報を出力する
+    // 1件ずつ読み込みながらレスポンスへ書き出すため、件数によらずメモリ使用量は一定
+    @GetMapping(value = "/export.csv")
+    public ResponseEntity<StreamingResponseBody> exportCsv(
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+
+        // 期間の指定がない場合は直近3か月分
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.minusMonths(3);
+        if (fromDate.isAfter(toDate)) {
+            return ResponseEntity.badRequest().build();
         }
 
-        // マップのエントリセットをリストに変換
-        List<Map.Entry<Report, Employee>> reportEmployeeList = new ArrayList<>(reportEmployeeMap.entrySet());
+        // ログインユーザーの判定は書き出し(別スレッド)の前に行う
+        Employee currentUser = employeeService.findByCode(reportService.getCurrentEmployeeCode());
+        String targetCode = currentUser.getRole() == Employee.Role.GENERAL ? currentUser.getCode() : null;
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            // Excelで文字化けしないようBOMを付ける
+            writer.write('\uFEFF');
+            reportService.writeCsv(targetCode, fromDate, toDate, writer);
+            writer.flush();
+        };
+
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("reports_" + fromDate + "_" + toDate + ".csv").build();
+        return ResponseEntity.ok().contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString()).body(body);
+    }
 
-        // モデルにリストサイズ、日報と従業員のリストを追加
-        model.addAttribute("listSize", reportEmployeeList.size());
-        model.addAttribute("reportEmployeeList", reportEmployeeList);
+    // 従業員別・月別の日報件数画面(管理者のみ)
+    // 集計テーブルのみを参照するため、日報の件数が増えても表示の負荷は変わらない
+    @GetMapping(value = "/summary")
+    public String summary(@RequestParam(required = false) Integer year, Model model) {
+        int targetYear = year == null ? LocalDate.now().getYear() : year;
+        // 範囲外の年はエラーメッセージを表示し、今年の集計を表示する
+        if (targetYear < MIN_SUMMARY_YEAR || targetYear > MAX_SUMMARY_YEAR) {
+            model.addAttribute(ErrorMessage.getErrorName(ErrorKinds.YEARCHECK_ERROR),
+                    ErrorMessage.getErrorValue(ErrorKinds.YEARCHECK_ERROR));
+            targetYear = LocalDate.now().getYear();
+        }
+        model.addAttribute("summary", reportSummaryService.findYear(targetYear));
+        return "reports/summary";
+    }
 
-        return "reports/list";
+    // 集計を日報から作り直す
+    @PostMapping(value = "/summary/rebuild")
+    public String rebuildSummary(@RequestParam(required = false) Integer year) {
+        reportSummaryService.rebuild();
+        // 範囲外の年は戻り先の画面でエラーメッセージを表示する
+        return year == null ? "redirect:/reports/summary" : "redirect:/reports/summary?year=" + year;
+    }
+
+    // 日報一括登録画面(管理者のみ)
+    @GetMapping(value = "/import")
+    public String importForm() {
+        return "reports/import";
+    }
+
+    // 日報一括登録処理(CSV・JSON)
+    // エラーの行は登録せず、行ごとのエラー内容を画面に表示する
+    @PostMapping(value = "/import")
+    public String importReports(@RequestParam MultipartFile file, Model model) throws IOException {
+
+        if (file.isEmpty()) {
+            model.addAttribute("fileError", "ファイルを選択してください");
+            return importForm();
+        }
+
+        // 拡張子またはContent-TypeがJSONの場合はJSON、それ以外はCSVとして読み込む
+        String filename = file.getOriginalFilename() == null ? "" : file.getOriginalFilename();
+        boolean json = filename.toLowerCase(Locale.ROOT).endsWith(".json")
+                || MediaType.APPLICATION_JSON_VALUE.equals(file.getContentType());
+
+        ReportImportResult result;
+        try (InputStream inputStream = file.getInputStream()) {
+            result = json ? reportImportService.importJson(inputStream)
+                    : reportImportService.importCsv(
+                            new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+        }
+
+        model.addAttribute("filename", filename);
+        model.addAttribute("result", result);
+        return importForm();
     }
 
     // 日報詳細画面
     @GetMapping(value = "/{id}")
-    public String detail(@PathVariable Integer id, Model model) {
+    public String detail(@PathVariable Integer id, Model model, ServletWebRequest request) {
+
+        // 日報の更新日時と従業員の更新日時(従業員名の変更)から、ブラウザの画面が最新であれば描画せず304を返す
+        ReportVersion version = reportService.findVersion(id);
+        if (version != null) {
+            Employee employee = employeeService.findByCode(version.employeeCode());
+            if (HttpCacheUtils.checkNotModified(request, version.updatedAt(),
+                    employee == null ? null : employee.getUpdatedAt())) {
+                return null;
+            }
+        }
+        return showDetail(id, model);
+    }
 
-        // IDを使ってReportを取得
-        Report report = reportService.findByReport(id);
+    // 日報詳細画面の描画(削除エラー時にも使用)
+    private String showDetail(Integer id, Model model) {
+
+        // IDを使ってReportを取得(内容を含む)
+        Report report = reportService.findWithContent(id);
 
         // ReportからemployeeCodeを取得し、Employeeを取得
         Employee employee = employeeService.findByCode(report.getEmployeeCode());
@@ -165,9 +358,12 @@ public class ReportController {
             // エラーメッセージが含まれている場合、エラーをモデルに追加し、詳細画面にリダイレクト
             model.addAttribute(ErrorMessage.getErrorName(result), ErrorMessage.getErrorValue(result));
             model.addAttribute("report", reportService.findByReport(id));
-            return detail(id, model);
+            return showDetail(id, model);
         }
 
+        // 削除した日報の下書きは復元できないため削除
+        reportDraftService.discardReport(id);
+
         // 成功した場合は一覧画面にリダイレクト
         return "redirect:/reports";
     }
@@ -183,48 +379,61 @@ public class ReportController {
             model.addAttribute("employee", employee);
 
           }else{
-            // idがnull以外⇒詳細画面から遷移。idを使ってReportを取得
-              report = reportService.findByReport(id);
+            // idがnull以外⇒詳細画面から遷移。idを使ってReportを取得(内容を含む)
+              report = reportService.findWithContent(id);
+
+              // 日報の更新後に入力された下書きがあれば復元する
+              ReportDraft draft = reportDraftService.findLatest(reportService.getCurrentEmployeeCode(), id);
+              if (draft != null && draft.getUpdatedAt().isAfter(report.getUpdatedAt())) {
+                  report.setReportDate(draft.getReportDate());
+                  report.setTitle(draft.getTitle());
+                  report.setContent(draft.getContent());
+                  model.addAttribute("draftRestored", true);
+              }
 
               // ReportからemployeeCodeを取得し、Employeeを取得
               Employee employee = employeeService.findByCode(report.getEmployeeCode());
 
-              model.addAttribute("report", reportService.findByReport(id));
+              model.addAttribute("report", report);
               model.addAttribute("employee", employee);
           }
+        // 下書きの入力を始めた日時(この後に日報が更新された場合、この画面の下書きは保存しない)
+        model.addAttribute("draftSince", LocalDateTime.now());
         // User更新画面に遷移
         return "reports/update";
     }
 
     /** 日報更新処理 @PostMapping画面でもらってきたデータを受け取って処理をする*/
     @PostMapping("/{id}/update")
-    public String postReport(@PathVariable Integer id, @Validated Report report, BindingResult res, Model model) {
-
-        // 現在のログインユーザーを取得
-        String currentUser = reportService.getCurrentEmployeeCode();
+    public String postReport(@PathVariable Integer id,
+            @Validated({ Default.class, Report.Input.class }) Report report, BindingResult res, Model model) {
 
         if(res.hasErrors()) {
             model.addAttribute("report", report);
             return update(null, model, report);
         }
 
-        // 現在のログインユーザー以外の日報データで、指定ID以外の日付の重複をチェック Notをつけると除外される
-        List<Report> otherReports = reportService.findByEmployeeCodeAndReportDateAndId(currentUser, report.getReportDate(), id);
-
-        // 他の日報データで同じ日付が存在する場合
-        if (!otherReports.isEmpty()) {
-            model.addAttribute("errorMessage", "既に登録されている日付です。");
-            return update(null, model, report); // エラーメッセージを設定して更新画面に戻る
-        }
-
+        // 他の日報と日付が重複する場合はDBの一意制約違反となるためtry~catchで対応
+        try {
+            ErrorKinds result = reportService.renew(report, id);
 
-        ErrorKinds result = reportService.renew(report, id);
+            if (ErrorMessage.contains(result)) {
+                model.addAttribute(ErrorMessage.getErrorName(result), ErrorMessage.getErrorValue(result));
+                return update(null, model, report);
+            }
 
-        if (ErrorMessage.contains(result)) {
-            model.addAttribute(ErrorMessage.getErrorName(result), ErrorMessage.getErrorValue(result));
-            return update(null, model, report);
+        } catch (DataIntegrityViolationException e) {
+            // 同一日付の重複以外の制約違反はエラー画面とする
+            if (!ReportService.isDuplicateDate(e)) {
+                throw e;
+            }
+            model.addAttribute(ErrorMessage.getErrorName(ErrorKinds.DATECHECK_ERROR),
+                    ErrorMessage.getErrorValue(ErrorKinds.DATECHECK_ERROR));
+            return update(null, model, report); // エラーメッセージを設定して更新画面に戻る
         }
 
+        // 更新した日報の下書きは不要になるため削除
+        reportDraftService.discard(reportService.getCurrentEmployeeCode(), id);
         return "redirect:/reports";
     }
 
@@ -0,0 +1,73 @@
+package com.techacademy.datasource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// 仮想スレッドでリクエストを処理する場合に、同時に処理するリクエスト数を接続プールの大きさまでに制限する
+// スレッドプール(既定で最大200)による上限がなくなるため、制限しないと同時接続数だけ接続プールの空き待ちとなり、
+// 待ち時間が接続プールのタイムアウト(既定30秒)を超えたリクエストがエラーになる
+// 上限を超えたリクエストは先着順に待たせ、待ち時間が上限を超えた場合は503を返す
+// 監視用のリクエスト(/actuator)とcss・jsはDBを使わないため対象外とする
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ConcurrentRequestLimiter extends OncePerRequestFilter implements Ordered {
+
+    private final Semaphore permits;
+    private final Duration timeout;
+
+    @Autowired
+    public ConcurrentRequestLimiter(
+            @Value("${app.datasource.max-concurrent-requests:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrentRequests,
+            @Value("${app.datasource.concurrent-request-timeout:30s}") Duration timeout) {
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.timeout = timeout;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/actuator") || path.startsWith("/css/") || path.startsWith("/js/");
+    }
+
+    // セッションの読み込み(Spring Session)もDBを使うため、それより前で制限する
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
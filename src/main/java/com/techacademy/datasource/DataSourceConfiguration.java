@@ -0,0 +1,67 @@
+package com.techacademy.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@Configuration
+public class DataSourceConfiguration {
+
+    // 接続先のDataSource
+    // レプリカが指定されていない場合は、Spring Bootの既定と同じくspring.datasource.*の接続プールをそのまま使う
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+            @Value("${app.datasource.replica-urls:}") List<String> replicaUrls,
+            @Value("${app.datasource.replica-health-check-interval:10s}") Duration healthCheckInterval,
+            @Value("${app.datasource.read-your-writes:5s}") Duration readYourWrites) {
+
+        HikariDataSource primary = createPool(properties, environment, properties.determineUrl());
+        if (replicaUrls.isEmpty()) {
+            return primary;
+        }
+
+        // レプリカの接続プールはURL以外をプライマリと同じ設定で作成する
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = createPool(properties, environment, url.trim());
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replicas.add(replica);
+        }
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicas,
+                DataSourceConfiguration::currentUser, readYourWrites);
+        dataSource.startHealthCheck(healthCheckInterval);
+        return dataSource;
+    }
+
+    // spring.datasource.hikari.* の設定を反映した接続プールを作成
+    private HikariDataSource createPool(DataSourceProperties properties, Environment environment, String url) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        return dataSource;
+    }
+
+    // read-your-writesの判定に使うログインユーザー(未ログインの場合はnull)
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
@@ -0,0 +1,221 @@
+package com.techacademy.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// 参照専用のトランザクション(@Transactional(readOnly = true))をレプリカに、それ以外をプライマリに振り分けるDataSource
+// ・レプリカは定期的に死活監視し、停止中または接続できない場合はプライマリで処理する
+// ・更新したユーザーの参照は、レプリカへの反映を待たずに済むよう一定時間(read-your-writes)プライマリで処理する
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    // 接続先の強制指定(レプリカの遅延が許されない参照用)
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // 更新を行ったユーザー(一定時間で自動的に削除される)
+    private final Supplier<String> currentUser;
+    private final Cache<String, Boolean> recentWriters;
+
+    // トランザクション開始時点では読み取り専用かどうかが確定していないため、実際の接続は最初のSQL実行まで遅らせる
+    private final LazyConnectionDataSourceProxy lazyDataSource;
+
+    private ScheduledExecutorService healthCheckExecutor;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Supplier<String> currentUser,
+            Duration readYourWrites) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            list.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.currentUser = currentUser;
+        this.recentWriters = readYourWrites.isZero() ? null
+                : Caffeine.newBuilder().expireAfterWrite(readYourWrites).maximumSize(10_000).build();
+        this.lazyDataSource = new LazyConnectionDataSourceProxy(new RoutingTarget());
+    }
+
+    // 処理中はレプリカを使わずプライマリから読み込む
+    // (キャッシュへの読み込みなど、レプリカの遅延で古い値を長く保持してしまう参照に使う)
+    public static <T> T usePrimary(Supplier<T> action) {
+        if (Boolean.TRUE.equals(PRIMARY_ONLY.get())) {
+            return action.get();
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    // 指定した間隔でレプリカの死活監視を開始する
+    public void startHealthCheck(Duration interval) {
+        healthCheckExecutor = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("replica-health-check-"));
+        healthCheckExecutor.scheduleWithFixedDelay(this::checkReplicas, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // 全レプリカに接続を試み、応答の有無で振り分け対象とするかを更新する
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                replica.healthy = connection.isValid(5);
+            } catch (SQLException | RuntimeException e) {
+                replica.healthy = false;
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return lazyDataSource.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return lazyDataSource.getConnection(username, password);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (healthCheckExecutor != null) {
+            healthCheckExecutor.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    // 実際に接続する時点(トランザクション開始後の最初のSQL実行時)で接続先を決める
+    private Connection routeConnection() throws SQLException {
+        if (!useReplica()) {
+            registerWriter();
+            return primary.getConnection();
+        }
+
+        // 正常なレプリカに順番に振り分ける(接続できなかったレプリカは次回の死活監視まで対象外とする)
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.healthy = false;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    private boolean useReplica() {
+        if (replicas.isEmpty() || Boolean.TRUE.equals(PRIMARY_ONLY.get())
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        // 直前に更新したユーザーはプライマリで参照する
+        if (recentWriters != null) {
+            String user = currentUser.get();
+            return user == null || recentWriters.getIfPresent(user) == null;
+        }
+        return true;
+    }
+
+    // 更新用のトランザクションがコミットされたら、そのユーザーを一定時間プライマリで参照させる
+    private void registerWriter() {
+        if (recentWriters == null || !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String user = currentUser.get();
+        if (user == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    // レプリカごとの接続先と死活監視の結果
+    public static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+
+    // LazyConnectionDataSourceProxyから実際の接続を取得する際の接続先
+    private class RoutingTarget extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return routeConnection();
+        }
+
+        // ユーザーを指定した接続は参照用DBの設定と一致しないため、常に更新用DBから取得する
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.techacademy.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 内容を含む日報の全項目(CSV出力・検索インデックスの作成用)
+public record ReportDocument(Integer id, LocalDate reportDate, String employeeCode, String title, String content,
+        LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,12 @@
+package com.techacademy.dto;
+
+import java.util.List;
+
+// 日報一括登録の結果(全件数・登録件数・エラーの行)
+// エラーが多い場合、画面に表示するエラーはerrorsの件数までとし、件数はerrorCountで数える
+public record ReportImportResult(int total, int imported, int errorCount, List<RowError> errors) {
+
+    // エラーの行(データの何件目か、エラー内容)
+    public record RowError(int row, String message) {
+    }
+}
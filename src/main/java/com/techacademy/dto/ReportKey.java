@@ -0,0 +1,7 @@
+package com.techacademy.dto;
+
+import java.time.LocalDate;
+
+// 従業員・日付の組(同一日付の日報の重複チェック用)
+public record ReportKey(String employeeCode, LocalDate reportDate) {
+}
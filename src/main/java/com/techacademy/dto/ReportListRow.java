@@ -0,0 +1,7 @@
+package com.techacademy.dto;
+
+import java.time.LocalDate;
+
+// 日報一覧の1行分(一覧に表示する項目のみを保持する)
+public record ReportListRow(Integer id, LocalDate reportDate, String title, String employeeCode, String employeeName) {
+}
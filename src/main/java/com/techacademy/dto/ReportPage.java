@@ -0,0 +1,17 @@
+package com.techacademy.dto;
+
+import java.util.List;
+
+// 日報一覧の1ページ分(キーセットページング用)
+public record ReportPage(List<ReportListRow> rows, boolean hasNext, boolean hasPrevious) {
+
+    // ページ先頭の行(前ページへのカーソル)
+    public ReportListRow getFirst() {
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // ページ末尾の行(次ページへのカーソル)
+    public ReportListRow getLast() {
+        return rows.isEmpty() ? null : rows.get(rows.size() - 1);
+    }
+}
@@ -0,0 +1,20 @@
+package com.techacademy.dto;
+
+import java.util.List;
+
+// 日報検索結果の1ページ分(関連度順のためページ番号で移動する)
+public record ReportSearchPage(List<ReportListRow> rows, int total, int page, int size) {
+
+    // 検索結果なし
+    public static ReportSearchPage empty(int size) {
+        return new ReportSearchPage(List.of(), 0, 0, size);
+    }
+
+    public boolean getHasPrevious() {
+        return page > 0;
+    }
+
+    public boolean getHasNext() {
+        return ((long) page + 1) * size < total;
+    }
+}
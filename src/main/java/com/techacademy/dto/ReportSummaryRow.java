@@ -0,0 +1,8 @@
+package com.techacademy.dto;
+
+import java.time.LocalDate;
+
+// 集計テーブルの1行分(従業員名付き)
+public record ReportSummaryRow(String employeeCode, String employeeName, LocalDate reportMonth, Integer reportCount,
+        LocalDate lastReportDate) {
+}
@@ -0,0 +1,13 @@
+package com.techacademy.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// 1年分の従業員別・月別の日報件数(monthTotals・countsは1月から12月の順)
+public record ReportSummaryTable(int year, List<Line> lines, List<Integer> monthTotals, int total) {
+
+    // 従業員1人分(lastReportDateは対象年の最終日報日)
+    public record Line(String employeeCode, String employeeName, List<Integer> counts, int total,
+            LocalDate lastReportDate) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.techacademy.dto;
+
+import java.time.LocalDateTime;
+
+// 日報の版(条件付きGETの判定用。日報本体を読み込まずに取得する)
+public record ReportVersion(String employeeCode, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,62 @@
+package com.techacademy.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+// 監査ログ(日報・従業員の登録・更新・削除の履歴)
+// 書き込みはAuditLogWriterがJDBCでまとめて行う(エンティティはテーブル定義と参照用)
+@Data
+@Entity
+@Table(name = "audit_logs",
+        indexes = {
+                // 日報・従業員ごとの履歴の参照用
+                @Index(name = "idx_audit_logs_target", columnList = "target_type, target_id, occurred_at") })
+public class AuditLog {
+
+    // 操作
+    public static enum Action {
+        CREATE, UPDATE, DELETE
+    }
+
+    // 操作の対象
+    public static enum TargetType {
+        REPORT, EMPLOYEE
+    }
+
+    // ID(JDBCの一括登録ではIDを取得しないため、自動採番で問題ない)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 操作日時
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    // 操作した従業員の社員番号(ログインしていない処理の場合はnull)
+    @Column(length = 10)
+    private String actorCode;
+
+    // 操作
+    @Column(columnDefinition = "VARCHAR(10)", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Action action;
+
+    // 操作の対象
+    @Column(columnDefinition = "VARCHAR(10)", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TargetType targetType;
+
+    // 対象のID(日報ID・社員番号)
+    @Column(length = 10, nullable = false)
+    private String targetId;
+}
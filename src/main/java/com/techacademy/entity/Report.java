@@ -14,20 +14,46 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "reports")
+@Table(name = "reports",
+        indexes = {
+                // 同一日付チェック・従業員ごとの一覧取得用
+                @Index(name = "idx_reports_employee_date", columnList = "employee_code, report_date, delete_flg"),
+                // 全件一覧のキーセットページング用
+                @Index(name = "idx_reports_date_id", columnList = "report_date, id"),
+                // 検索インデックスの差分反映(更新日時以降の日報の取得)用
+                @Index(name = "idx_reports_updated_at", columnList = "updated_at") },
+        uniqueConstraints = {
+                // 同一従業員・同一日付の日報は1件のみ(論理削除済みの日報は対象外)
+                @UniqueConstraint(name = Report.UNIQUE_EMPLOYEE_DATE,
+                        columnNames = { "employee_code", "report_date", "active_flg" }) })
 @SQLRestriction("delete_flg = false")
 public class Report {
 
+    // 同一従業員・同一日付の一意制約の名前(重複登録の判定に使用)
+    public static final String UNIQUE_EMPLOYEE_DATE = "uk_reports_employee_date_active";
+
+    // 画面・一括登録からの入力時のみ行う入力チェックのグループ
+    // (永続化時の入力チェックはDefaultグループのみのため、保存時には対象外となる)
+    public interface Input {
+    }
+
     // ID
+    // IDENTITYではINSERTのたびにIDを取得する必要がありバッチ登録ができないため、シーケンスからまとめて採番する
+    // (MySQLではシーケンス用のテーブル reports_seq で代用される)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reports_seq")
+    @SequenceGenerator(name = "reports_seq", sequenceName = "reports_seq", allocationSize = 50)
     @Column(nullable = false)
     private Integer id;
 
@@ -43,9 +69,12 @@ public class Report {
     private String title;
 
     // 内容
-    @Column(length = 600, columnDefinition = "LONGTEXT", nullable = false)
-    @NotEmpty
-    @Length(max = 600)
+    // 一覧・同一日付チェック等で読み込まないよう、別テーブル(report_contents)に保存する(ReportContent)
+    // 詳細画面・更新画面の表示時のみ読み込むため、それ以外で取得した日報ではnull
+    // 保存時の日報には設定されていない場合があるため、入力チェックは入力時(Inputグループ)のみ行う
+    @Transient
+    @NotEmpty(groups = Input.class)
+    @Length(max = 600, groups = Input.class)
     private String content;
 
     // 社員番号
@@ -58,6 +87,11 @@ public class Report {
     @Column(columnDefinition = "TINYINT", nullable = false)
     private boolean deleteFlg;
 
+    // 有効フラグ(削除フラグから生成される列。未削除は1、論理削除済みはNULL)
+    // 一意制約はNULLを重複とみなさないため、論理削除済みの日報と同じ日付で再登録できる
+    @Column(columnDefinition = "TINYINT GENERATED ALWAYS AS (CASE WHEN delete_flg = 0 THEN 1 END)", insertable = false, updatable = false)
+    private Boolean activeFlg;
+
     // 登録日時
     @Column(nullable = false)
     private LocalDateTime createdAt;
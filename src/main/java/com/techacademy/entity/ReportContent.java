@@ -0,0 +1,32 @@
+package com.techacademy.entity;
+
+import com.techacademy.compression.ReportContentConverter;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 日報の内容(日報1件につき1行。日報テーブルの行を小さく保つため本文のみ別テーブルに保存する)
+// 入力チェックは画面・一括登録で日報(Report.content)に対して行う
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "report_contents")
+public class ReportContent {
+
+    // 日報ID(日報テーブルのIDと同じ値)
+    @Id
+    @Column(nullable = false)
+    private Integer reportId;
+
+    // 内容(一定以上の長さの内容は圧縮して保存する。ReportContentCodec)
+    @Convert(converter = ReportContentConverter.class)
+    @Column(columnDefinition = "LONGBLOB", nullable = false)
+    private String content;
+}
@@ -0,0 +1,70 @@
+package com.techacademy.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 日報の下書き(登録・更新画面の入力途中の内容。従業員・画面(新規登録または更新中の日報)ごとに最新の1件のみ保存する)
+// 日付ではなく画面ごとに保存するため、新規登録と更新の下書きは上書きし合わず、入力中に日付を変更しても1件のまま
+// 書き込みはReportDraftServiceがJDBCでまとめて行う
+// 入力途中の内容のため入力チェックは行わず、登録・更新時に日報(Report)として行う
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(ReportDraft.Key.class)
+@Table(name = "report_drafts",
+        indexes = {
+                // 日報の削除時に全従業員の下書きを削除する
+                @Index(name = "idx_report_drafts_report_id", columnList = "report_id") })
+public class ReportDraft {
+
+    // 新規登録画面の下書きの日報ID(日報のIDは1から採番される)
+    public static final int NEW_REPORT_ID = 0;
+
+    // 主キー(社員番号, 日報ID)
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String employeeCode;
+        private Integer reportId;
+    }
+
+    // 社員番号
+    @Id
+    @Column(length = 10)
+    private String employeeCode;
+
+    // 更新中の日報のID(新規登録画面の下書きの場合はNEW_REPORT_ID)
+    @Id
+    private Integer reportId;
+
+    // 日付
+    @Column(nullable = false)
+    private LocalDate reportDate;
+
+    // タイトル
+    @Column(length = 255, nullable = false)
+    private String title;
+
+    // 内容
+    @Column(columnDefinition = "LONGTEXT", nullable = false)
+    private String content;
+
+    // 更新日時(画面で最後に入力された日時)
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,62 @@
+package com.techacademy.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 従業員別・月別の日報件数(日報の登録・更新・削除と同じトランザクションで更新する集計テーブル)
+@Data
+@NoArgsConstructor
+@Entity
+@IdClass(ReportSummary.Key.class)
+@Table(name = "report_summaries",
+        indexes = {
+                // 期間を指定した集計表の表示用
+                @Index(name = "idx_report_summaries_month", columnList = "report_month") })
+public class ReportSummary {
+
+    // 主キー(社員番号, 対象月)
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String employeeCode;
+        private LocalDate reportMonth;
+    }
+
+    // 社員番号
+    @Id
+    @Column(length = 10)
+    private String employeeCode;
+
+    // 対象月(月初日)
+    @Id
+    private LocalDate reportMonth;
+
+    // 日報件数
+    @Column(nullable = false)
+    private int reportCount;
+
+    // 対象月の最終日報日(対象月の日報がすべて削除された場合はnullとなり、集計行ごと削除される)
+    private LocalDate lastReportDate;
+
+    // 日報テーブルからの再集計用
+    public ReportSummary(String employeeCode, Integer year, Integer month, Long reportCount,
+            LocalDate lastReportDate) {
+        this.employeeCode = employeeCode;
+        this.reportMonth = LocalDate.of(year, month, 1);
+        this.reportCount = reportCount.intValue();
+        this.lastReportDate = lastReportDate;
+    }
+}
@@ -0,0 +1,97 @@
+package com.techacademy.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.constants.ErrorMessage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// コントローラー・サービスの処理時間と件数を結果(ErrorKinds)ごとに計測する
+// リポジトリはSpring Boot標準のメトリクス(spring.data.repository.invocations)で計測する
+@Aspect
+@Component
+public class MetricsAspect {
+
+    // メトリクス名
+    static final String CONTROLLER_METRIC = "dailyreport.controller";
+    static final String SERVICE_METRIC = "dailyreport.service";
+
+    // 入力チェック(Bean Validation)エラー・例外発生時の結果
+    static final String OUTCOME_INVALID = "INVALID";
+    static final String OUTCOME_EXCEPTION = "EXCEPTION";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public MetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // 日報・従業員画面のハンドラー
+    @Around("execution(public * com.techacademy.controller.ReportController.*(..))"
+            + " || execution(public * com.techacademy.controller.EmployeeController.*(..))")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(CONTROLLER_METRIC, joinPoint);
+    }
+
+    // 日報・従業員のサービス
+    @Around("execution(public * com.techacademy.service.ReportService.*(..))"
+            + " || execution(public * com.techacademy.service.EmployeeService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(SERVICE_METRIC, joinPoint);
+    }
+
+    private Object record(String metricName, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_EXCEPTION;
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcome(result, joinPoint.getArgs());
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(metricName)
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName()).tag("outcome", outcome)
+                    .tag("exception", exception).register(meterRegistry));
+        }
+    }
+
+    // 処理結果の判定
+    // サービスは戻り値のErrorKinds、コントローラーは画面に渡したエラーメッセージから判定する
+    private String outcome(Object result, Object[] args) {
+        if (result instanceof ErrorKinds errorKinds) {
+            return errorKinds.name();
+        }
+
+        for (Object arg : args) {
+            if (arg instanceof Model model) {
+                for (ErrorKinds errorKinds : ErrorKinds.values()) {
+                    if (ErrorMessage.contains(errorKinds) && ErrorMessage.getErrorValue(errorKinds)
+                            .equals(model.getAttribute(ErrorMessage.getErrorName(errorKinds)))) {
+                        return errorKinds.name();
+                    }
+                }
+            }
+        }
+
+        for (Object arg : args) {
+            if (arg instanceof BindingResult bindingResult && bindingResult.hasErrors()) {
+                return OUTCOME_INVALID;
+            }
+        }
+
+        return ErrorKinds.SUCCESS.name();
+    }
+}
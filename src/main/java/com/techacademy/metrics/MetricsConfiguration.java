@@ -0,0 +1,92 @@
+package com.techacademy.metrics;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.techacademy.audit.AuditLogWriter;
+import com.techacademy.datasource.ReplicaRoutingDataSource;
+import com.techacademy.security.OffloadedPasswordEncoder;
+import com.techacademy.service.EmployeeCache;
+import com.techacademy.view.FragmentCache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+@Configuration
+public class MetricsConfiguration {
+
+    // 従業員キャッシュのヒット率・追い出し件数
+    @Bean
+    public MeterBinder employeeCacheMetrics(EmployeeCache employeeCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, employeeCache.getNativeCache(), "employees");
+    }
+
+    // 共通部品(ヘッダー・サイドメニュー)のキャッシュのヒット率と、キャッシュにより省略できた描画時間
+    @Bean
+    public MeterBinder fragmentCacheMetrics(FragmentCache fragmentCache) {
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, fragmentCache.getNativeCache(), "fragments");
+            FunctionCounter.builder("dailyreport.view.fragment.saved", fragmentCache, FragmentCache::getSavedSeconds)
+                    .baseUnit("seconds").register(registry);
+        };
+    }
+
+    // パスワード処理スレッドの待ち件数・実行中件数と、使用中のBCryptの強度
+    @Bean
+    public MeterBinder passwordEncoderMetrics(OffloadedPasswordEncoder passwordEncoder) {
+        return registry -> {
+            new ExecutorServiceMetrics(passwordEncoder.getExecutor(), "password-encoder", Tags.empty()).bindTo(registry);
+            Gauge.builder("dailyreport.password.strength", passwordEncoder, OffloadedPasswordEncoder::getStrength)
+                    .register(registry);
+        };
+    }
+
+    // 監査ログの書き込み待ちの件数と、書き込んだ件数・バッファに空きがなく破棄した件数
+    @Bean
+    public MeterBinder auditLogMetrics(AuditLogWriter auditLogWriter) {
+        return registry -> {
+            Gauge.builder("dailyreport.audit.pending", auditLogWriter, AuditLogWriter::getPendingCount)
+                    .register(registry);
+            FunctionCounter.builder("dailyreport.audit.written", auditLogWriter, AuditLogWriter::getWrittenCount)
+                    .register(registry);
+            FunctionCounter.builder("dailyreport.audit.dropped", auditLogWriter, AuditLogWriter::getDroppedCount)
+                    .register(registry);
+            FunctionCounter.builder("dailyreport.audit.failed", auditLogWriter, AuditLogWriter::getFailedCount)
+                    .register(registry);
+        };
+    }
+
+    // レプリカを使用する場合の、接続先(プライマリ・レプリカ)ごとの接続プールの状態とレプリカの死活監視の結果
+    @Bean
+    public MeterBinder replicaDataSourceMetrics(DataSource dataSource) {
+        return registry -> {
+            // 接続プールが1つの場合はSpring Bootが出力する
+            if (!(dataSource instanceof ReplicaRoutingDataSource routing)) {
+                return;
+            }
+            bindPoolMetrics(routing.getPrimary(), registry);
+            for (ReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+                bindPoolMetrics(replica.getDataSource(), registry);
+                Gauge.builder("dailyreport.datasource.replica.up", replica, r -> r.isHealthy() ? 1 : 0)
+                        .tag("pool", replica.getName()).register(registry);
+            }
+        };
+    }
+
+    private static void bindPoolMetrics(DataSource dataSource, MeterRegistry registry) {
+        if (dataSource instanceof HikariDataSource hikari && hikari.getMetricRegistry() == null
+                && hikari.getMetricsTrackerFactory() == null) {
+            hikari.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+    }
+}
@@ -5,4 +5,4 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import com.techacademy.entity.Employee;
 
 public interface EmployeeRepository extends JpaRepository<Employee, String> {
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package com.techacademy.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.techacademy.entity.ReportContent;
+
+public interface ReportContentRepository extends JpaRepository<ReportContent, Integer> {
+}
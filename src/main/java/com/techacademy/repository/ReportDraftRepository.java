@@ -0,0 +1,9 @@
+package com.techacademy.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.techacademy.entity.ReportDraft;
+
+// 下書きは(社員番号, 日報ID)ごとに1件のため、主キーで取得する
+public interface ReportDraftRepository extends JpaRepository<ReportDraft, ReportDraft.Key> {
+}
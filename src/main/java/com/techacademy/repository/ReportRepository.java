@@ -1,19 +1,126 @@
 package com.techacademy.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import jakarta.persistence.QueryHint;
+
+import com.techacademy.dto.ReportDocument;
+import com.techacademy.dto.ReportKey;
+import com.techacademy.dto.ReportListRow;
+import com.techacademy.dto.ReportVersion;
 import com.techacademy.entity.Report;
 
 public interface ReportRepository extends JpaRepository<Report, Integer> {
 
-    List<Report> findByEmployeeCode(String employeeCode);
+    // ストリーム読み込み時に1回でDBから取得する件数
+    // (MySQLではuseCursorFetch=trueの場合にサーバー側カーソルで指定件数ずつ取得される)
+    int STREAM_FETCH_SIZE = 500;
+
+    // 日報一覧の取得列(従業員名を結合して1回のSQLで取得する)
+    String LIST_ROW_SELECT = "SELECT new com.techacademy.dto.ReportListRow(r.id, r.reportDate, r.title, r.employeeCode, e.name) "
+            + "FROM Report r LEFT JOIN Employee e ON e.code = r.employeeCode ";
+
+    // 内容を含む日報の全項目の取得列(内容テーブルを結合する)
+    String DOCUMENT_SELECT = "SELECT new com.techacademy.dto.ReportDocument(r.id, r.reportDate, r.employeeCode, r.title, "
+            + "c.content, r.createdAt, r.updatedAt) FROM Report r JOIN ReportContent c ON c.reportId = r.id ";
+
+    // 日報一覧(全件) 先頭ページ
+    @Query(LIST_ROW_SELECT + "ORDER BY r.reportDate DESC, r.id DESC")
+    List<ReportListRow> findListRows(Pageable pageable);
+
+    // 日報一覧(全件) 指定した行より後ろ(古い側)のページ
+    @Query(LIST_ROW_SELECT
+            + "WHERE r.reportDate < :reportDate OR (r.reportDate = :reportDate AND r.id < :id) "
+            + "ORDER BY r.reportDate DESC, r.id DESC")
+    List<ReportListRow> findListRowsAfter(LocalDate reportDate, Integer id, Pageable pageable);
+
+    // 日報一覧(全件) 指定した行より前(新しい側)のページ ※昇順で返すため呼び出し側で反転する
+    @Query(LIST_ROW_SELECT
+            + "WHERE r.reportDate > :reportDate OR (r.reportDate = :reportDate AND r.id > :id) "
+            + "ORDER BY r.reportDate ASC, r.id ASC")
+    List<ReportListRow> findListRowsBefore(LocalDate reportDate, Integer id, Pageable pageable);
+
+    // 日報一覧(指定従業員分) 先頭ページ
+    @Query(LIST_ROW_SELECT + "WHERE r.employeeCode = :employeeCode ORDER BY r.reportDate DESC, r.id DESC")
+    List<ReportListRow> findListRowsByEmployeeCode(String employeeCode, Pageable pageable);
+
+    // 日報一覧(指定従業員分) 指定した行より後ろ(古い側)のページ
+    @Query(LIST_ROW_SELECT
+            + "WHERE r.employeeCode = :employeeCode "
+            + "AND (r.reportDate < :reportDate OR (r.reportDate = :reportDate AND r.id < :id)) "
+            + "ORDER BY r.reportDate DESC, r.id DESC")
+    List<ReportListRow> findListRowsByEmployeeCodeAfter(String employeeCode, LocalDate reportDate, Integer id,
+            Pageable pageable);
+
+    // 日報一覧(指定従業員分) 指定した行より前(新しい側)のページ ※昇順で返すため呼び出し側で反転する
+    @Query(LIST_ROW_SELECT
+            + "WHERE r.employeeCode = :employeeCode "
+            + "AND (r.reportDate > :reportDate OR (r.reportDate = :reportDate AND r.id > :id)) "
+            + "ORDER BY r.reportDate ASC, r.id ASC")
+    List<ReportListRow> findListRowsByEmployeeCodeBefore(String employeeCode, LocalDate reportDate, Integer id,
+            Pageable pageable);
+
+    // 指定従業員の日報をまとめて論理削除(1回のUPDATEで実行)
+    // 実行前に未反映の更新をDBへ反映し、実行後は古い状態が残らないよう永続化コンテキストをクリアする
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.deleteFlg = true, r.updatedAt = :updatedAt "
+            + "WHERE r.employeeCode = :employeeCode AND r.deleteFlg = false")
+    int softDeleteByEmployeeCode(String employeeCode, LocalDateTime updatedAt);
+
+    // 1件を論理削除(内容を読み込まずに1回のUPDATEで実行)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.deleteFlg = true, r.updatedAt = :updatedAt WHERE r.id = :id AND r.deleteFlg = false")
+    int softDeleteById(Integer id, LocalDateTime updatedAt);
+
+    // CSV出力用 期間内の日報を順に読み込む(全件をメモリに載せないようストリームで返す)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query(DOCUMENT_SELECT + "WHERE r.reportDate BETWEEN :from AND :to ORDER BY r.reportDate, r.id")
+    Stream<ReportDocument> streamByReportDateBetween(LocalDate from, LocalDate to);
+
+    // CSV出力用 指定従業員の期間内の日報を順に読み込む
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query(DOCUMENT_SELECT + "WHERE r.employeeCode = :employeeCode AND r.reportDate BETWEEN :from AND :to "
+            + "ORDER BY r.reportDate, r.id")
+    Stream<ReportDocument> streamByEmployeeCodeAndReportDateBetween(String employeeCode, LocalDate from, LocalDate to);
+
+    // 検索結果の表示用 指定したIDの日報一覧行(並び順は呼び出し側で関連度順に並べ替える)
+    @Query(LIST_ROW_SELECT + "WHERE r.id IN :ids")
+    List<ReportListRow> findListRowsByIdIn(Collection<Integer> ids);
+
+    // 検索インデックスの全件作成用 全日報をID順に読み込む
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query(DOCUMENT_SELECT + "ORDER BY r.id")
+    Stream<ReportDocument> streamAllOrderById();
+
+    // 検索インデックスの作成・差分反映用 指定日時以降に更新された日報を順に読み込む
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query(DOCUMENT_SELECT + "WHERE r.updatedAt >= :since")
+    Stream<ReportDocument> streamByUpdatedAtGreaterThanEqual(LocalDateTime since);
+
+    // 検索インデックスの差分反映用 指定日時以降に論理削除された日報のID
+    // (エンティティの検索では削除済みの日報が除外されるためSQLで直接取得する)
+    @Query(value = "SELECT r.id FROM reports r WHERE r.delete_flg = 1 AND r.updated_at >= :since", nativeQuery = true)
+    List<Integer> findDeletedIdsUpdatedSince(LocalDateTime since);
 
-    boolean existsByEmployeeCodeAndReportDate(String employeeCode, LocalDate reportDate);
+    // 一括登録の同一日付チェック用 指定従業員の期間内の日報の(従業員, 日付)
+    @Query("SELECT new com.techacademy.dto.ReportKey(r.employeeCode, r.reportDate) FROM Report r "
+            + "WHERE r.employeeCode IN :employeeCodes AND r.reportDate BETWEEN :from AND :to")
+    List<ReportKey> findKeys(Collection<String> employeeCodes, LocalDate from, LocalDate to);
 
-    List<Report> findByEmployeeCodeAndReportDateAndIdNot(String employeeCode, LocalDate reportDate, Integer id);
+    // 詳細画面の条件付きGET用 日報の版(本文などは読み込まない)
+    @Query("SELECT new com.techacademy.dto.ReportVersion(r.employeeCode, r.updatedAt) FROM Report r WHERE r.id = :id")
+    Optional<ReportVersion> findVersionById(Integer id);
 
 }
\ No newline at end of file
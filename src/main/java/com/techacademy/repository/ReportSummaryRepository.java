@@ -0,0 +1,57 @@
+package com.techacademy.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.techacademy.dto.ReportSummaryRow;
+import com.techacademy.entity.ReportSummary;
+
+public interface ReportSummaryRepository extends JpaRepository<ReportSummary, ReportSummary.Key> {
+
+    // 登録された日報の件数を加算する(集計行がなければ作成する)
+    // 同じ従業員・月の同時登録でも行ロックにより順に加算される
+    @Modifying
+    @Query(value = "INSERT INTO report_summaries (employee_code, report_month, report_count, last_report_date) "
+            + "VALUES (:employeeCode, :reportMonth, :count, :lastReportDate) ON DUPLICATE KEY UPDATE "
+            + "report_count = report_count + :count, last_report_date = GREATEST(last_report_date, :lastReportDate)",
+            nativeQuery = true)
+    int add(@Param("employeeCode") String employeeCode, @Param("reportMonth") LocalDate reportMonth,
+            @Param("count") int count, @Param("lastReportDate") LocalDate lastReportDate);
+
+    // 削除された日報の件数を減算し、最終日報日を日報テーブルから求め直す(1従業員の1か月分のため最大31件の参照)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ReportSummary s SET s.reportCount = s.reportCount - :count, "
+            + "s.lastReportDate = (SELECT MAX(r.reportDate) FROM Report r WHERE r.employeeCode = :employeeCode "
+            + "AND r.reportDate BETWEEN :reportMonth AND :monthEnd) "
+            + "WHERE s.employeeCode = :employeeCode AND s.reportMonth = :reportMonth")
+    int subtract(@Param("employeeCode") String employeeCode, @Param("reportMonth") LocalDate reportMonth,
+            @Param("monthEnd") LocalDate monthEnd, @Param("count") int count);
+
+    // 日報がなくなった月の集計行を削除
+    @Modifying
+    @Query("DELETE FROM ReportSummary s WHERE s.employeeCode = :employeeCode AND s.reportMonth = :reportMonth "
+            + "AND s.reportCount <= 0")
+    int deleteEmpty(@Param("employeeCode") String employeeCode, @Param("reportMonth") LocalDate reportMonth);
+
+    // 指定従業員の集計行をまとめて削除(従業員削除時に使用)
+    @Modifying
+    @Query("DELETE FROM ReportSummary s WHERE s.employeeCode = :employeeCode")
+    int deleteByEmployeeCode(@Param("employeeCode") String employeeCode);
+
+    // 期間内の集計行(従業員名付き。削除済みの従業員は含まない)
+    @Query("SELECT new com.techacademy.dto.ReportSummaryRow(s.employeeCode, e.name, s.reportMonth, s.reportCount, "
+            + "s.lastReportDate) FROM ReportSummary s JOIN Employee e ON e.code = s.employeeCode "
+            + "WHERE s.reportMonth BETWEEN :from AND :to ORDER BY s.employeeCode, s.reportMonth")
+    List<ReportSummaryRow> findRows(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // 日報テーブルから従業員別・月別に集計する(再集計用)
+    @Query("SELECT new com.techacademy.entity.ReportSummary(r.employeeCode, year(r.reportDate), month(r.reportDate), "
+            + "COUNT(r), MAX(r.reportDate)) FROM Report r "
+            + "GROUP BY r.employeeCode, year(r.reportDate), month(r.reportDate)")
+    List<ReportSummary> summarizeReports();
+}
@@ -0,0 +1,27 @@
+package com.techacademy.security;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+// OffloadedPasswordEncoderを使うログイン処理
+// ログインが集中してパスワードの照合待ちが上限を超えた場合は、エラー画面(500)ではなく通常のログイン失敗とする
+// (照合・再ハッシュ化のどちらで上限を超えた場合も同じ)
+public class OffloadedAuthenticationProvider extends DaoAuthenticationProvider {
+
+    public OffloadedAuthenticationProvider(OffloadedPasswordEncoder passwordEncoder) {
+        setPasswordEncoder(passwordEncoder);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        try {
+            return super.authenticate(authentication);
+        } catch (RejectedExecutionException e) {
+            throw new AuthenticationServiceException("パスワードの照合待ちが上限を超えています", e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.techacademy.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// パスワードのハッシュ化・照合を専用のスレッドで行うPasswordEncoder
+// BCryptはCPUを占有するため、同時に実行する数をスレッド数で制限し、ログインが集中しても他の画面の処理を妨げないようにする
+// 待ち件数が上限を超えた場合はRejectedExecutionExceptionとなる(ログイン時はOffloadedAuthenticationProviderがログイン失敗とする)
+public class OffloadedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    // BCryptの強度(ハッシュ化の回数 2^strength)の下限・上限
+    public static final int MIN_STRENGTH = 10;
+    public static final int MAX_STRENGTH = 16;
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+
+    public OffloadedPasswordEncoder(int strength, int threads, int queueCapacity) {
+        this.strength = strength;
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-encoder-"));
+    }
+
+    // 1回のハッシュ化が目標時間を超えない最大の強度を求める(下限はMIN_STRENGTH)
+    // 強度を1上げると処理時間は2倍になるため、下限の強度での処理時間から計算する
+    public static int calibrate(Duration targetTime) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(MIN_STRENGTH);
+        // 初回はJITコンパイル前で遅いため、2回目以降の最短時間を使う
+        encoder.encode("calibration");
+        long elapsed = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            elapsed = Math.min(elapsed, System.nanoTime() - start);
+        }
+
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH && elapsed * 2 <= targetTime.toNanos()) {
+            strength++;
+            elapsed *= 2;
+        }
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return call(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // 保存済みのハッシュの強度が現在の強度より低い場合はtrue(ログイン成功時に再ハッシュ化される)
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    // メトリクス連携用に実行スレッドを取得
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T call(Callable<T> task) {
+        Future<T> future = executor.submit(task);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("パスワードの処理中に割り込みが発生しました", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.techacademy.service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.techacademy.datasource.ReplicaRoutingDataSource;
+import com.techacademy.entity.Employee;
+
+// 社員番号をキーにした従業員情報のキャッシュ(ログイン・ログインユーザー取得時の主キー検索を減らす)
+// 読み込んだエンティティ(トランザクション中は永続化コンテキストで管理される)ではなく複製を保持し、取得のたびに複製を返す
+// (呼び出し元での変更・保存が、キャッシュや他のスレッドに共有されないようにする)
+// 他のサーバーでの更新・削除は削除されないため、有効期限(expire-after-write)を短くして反映を待つ
+@Component
+public class EmployeeCache {
+
+    private final Cache<String, Employee> cache;
+
+    public EmployeeCache(@Value("${app.employee-cache.maximum-size:1000}") long maximumSize,
+            @Value("${app.employee-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        // 件数の上限と登録からの有効期限の両方で追い出す
+        this.cache = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite).recordStats()
+                .build();
+    }
+
+    // キャッシュから取得(なければloaderで読み込む。nullの場合はキャッシュしない)
+    // レプリカの遅延で古い値をキャッシュに残さないよう、読み込みは常にプライマリで行う
+    public Employee get(String code, Function<String, Employee> loader) {
+        Employee employee = cache.get(code,
+                key -> copy(ReplicaRoutingDataSource.usePrimary(() -> loader.apply(key))));
+        return copy(employee);
+    }
+
+    // 永続化コンテキストで管理されない複製
+    private static Employee copy(Employee employee) {
+        if (employee == null) {
+            return null;
+        }
+        Employee copy = new Employee();
+        copy.setCode(employee.getCode());
+        copy.setName(employee.getName());
+        copy.setRole(employee.getRole());
+        copy.setPassword(employee.getPassword());
+        copy.setDeleteFlg(employee.isDeleteFlg());
+        copy.setCreatedAt(employee.getCreatedAt());
+        copy.setUpdatedAt(employee.getUpdatedAt());
+        return copy;
+    }
+
+    // 指定した従業員をキャッシュから削除
+    // トランザクション中の場合は、コミット前に別リクエストが古い値を読み込む可能性があるためトランザクション終了後にも削除する
+    // (ロールバック時も、トランザクション内で読み込んだ未確定の値がキャッシュに残らないよう削除する)
+    public void invalidate(String code) {
+        cache.invalidate(code);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(code);
+                }
+            });
+        }
+    }
+
+    // ヒット数・ミス数・追い出し数などの統計情報
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // メトリクス連携用にキャッシュ本体を取得
+    public Cache<String, Employee> getNativeCache() {
+        return cache;
+    }
+}
@@ -10,7 +10,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.techacademy.audit.AuditLogWriter;
 import com.techacademy.constants.ErrorKinds;
+import com.techacademy.entity.AuditLog;
 import com.techacademy.entity.Employee;
 import com.techacademy.repository.EmployeeRepository;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,13 +20,23 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class EmployeeService {
 
+    // 半角英数字チェック用の正規表現(呼び出しごとにコンパイルしないよう事前に作成する)
+    private static final Pattern HALF_SIZE_PATTERN = Pattern.compile("^[A-Za-z0-9]+$");
+
     private final EmployeeRepository employeeRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EmployeeCache employeeCache;
+    private final ReportService reportService;
+    private final AuditLogWriter auditLogWriter;
 
     @Autowired
-    public EmployeeService(EmployeeRepository employeeRepository, PasswordEncoder passwordEncoder) {
+    public EmployeeService(EmployeeRepository employeeRepository, PasswordEncoder passwordEncoder,
+            EmployeeCache employeeCache, ReportService reportService, AuditLogWriter auditLogWriter) {
         this.employeeRepository = employeeRepository;
         this.passwordEncoder = passwordEncoder;
+        this.employeeCache = employeeCache;
+        this.reportService = reportService;
+        this.auditLogWriter = auditLogWriter;
     }
 
     // 従業員保存
@@ -49,6 +61,9 @@ public class EmployeeService {
         employee.setUpdatedAt(now);
 
         employeeRepository.save(employee);
+        // 論理削除済みの同じ社員番号の情報がキャッシュに残らないようにする
+        employeeCache.invalidate(employee.getCode());
+        auditLogWriter.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.EMPLOYEE, employee.getCode());
         return ErrorKinds.SUCCESS;
     }
 
@@ -74,6 +89,9 @@ public class EmployeeService {
         employee.setUpdatedAt(now);
 
         employeeRepository.save(employee);
+        // 権限・パスワードの変更をすぐに反映するためキャッシュから削除
+        employeeCache.invalidate(code);
+        auditLogWriter.publishAfterCommit(AuditLog.Action.UPDATE, AuditLog.TargetType.EMPLOYEE, code);
         return ErrorKinds.SUCCESS;
     }
 
@@ -82,29 +100,38 @@ public class EmployeeService {
     public ErrorKinds delete(String code, UserDetail userDetail) {
 
         // 自分を削除しようとした場合はエラーメッセージを表示
-        if (code.equals(userDetail.getEmployee().getCode())) {
+        if (code.equals(userDetail.getCode())) {
             return ErrorKinds.LOGINCHECK_ERROR;
         }
-        Employee employee = findByCode(code);
+        // 更新内容を反映させるため、キャッシュではなくDBから取得する
+        Employee employee = employeeRepository.findById(code).orElse(null);
         LocalDateTime now = LocalDateTime.now();
         employee.setUpdatedAt(now);
         employee.setDeleteFlg(true);
 
+        // 削除対象の従業員に紐づく日報を、同じトランザクション内で1回のUPDATEにより論理削除
+        reportService.deleteByEmployeeCode(code);
+
+        // 削除した従業員でログインできないようすぐにキャッシュから削除
+        employeeCache.invalidate(code);
+        auditLogWriter.publishAfterCommit(AuditLog.Action.DELETE, AuditLog.TargetType.EMPLOYEE, code);
         return ErrorKinds.SUCCESS;
     }
 
     // 従業員一覧表示処理
+    @Transactional(readOnly = true)
     public List<Employee> findAll() {
         return employeeRepository.findAll();
     }
 
-    // 1件を検索
+    // 1件を検索(参照専用 キャッシュを利用する)
     public Employee findByCode(String code) {
-        // findByIdで検索
-        Optional<Employee> option = employeeRepository.findById(code);
+        // キャッシュになければfindByIdで検索
         // 取得できなかった場合はnullを返す
-        Employee employee = option.orElse(null);
-        return employee;
+        return employeeCache.get(code, key -> {
+            Optional<Employee> option = employeeRepository.findById(key);
+            return option.orElse(null);
+        });
     }
 
     // 従業員パスワードチェック
@@ -131,8 +158,7 @@ public class EmployeeService {
     private boolean isHalfSizeCheckError(Employee employee) {
 
         // 半角英数字チェック
-        Pattern pattern = Pattern.compile("^[A-Za-z0-9]+$");
-        Matcher matcher = pattern.matcher(employee.getPassword());
+        Matcher matcher = HALF_SIZE_PATTERN.matcher(employee.getPassword());
         return !matcher.matches();
     }
 
@@ -0,0 +1,171 @@
+package com.techacademy.service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.techacademy.entity.ReportDraft;
+import com.techacademy.repository.ReportDraftRepository;
+
+// 日報の下書きの自動保存
+// ・画面からは数秒ごとに送信されるが、従業員・画面(新規登録または更新中の日報)ごとに最新の下書きのみをメモリに保持し、
+//   一定間隔でまとめて書き込む(送信の頻度によらず、DBへの書き込みは1画面あたり1間隔に1回まで)
+// ・日報の登録・更新・削除に成功した場合は、書き込み待ちの下書きと保存済みの下書きを削除する
+// ・下書きは入力を始めた日時(画面を表示した日時)を持ち、その後に日報が登録・更新された場合は書き込まない
+//   (削除後に届いた自動保存や、他のサーバーで書き込み待ちだった下書きで、削除した下書きが復活しないようにする)
+// ・書き込み待ちの下書きはサーバーごとに保持するため、他のサーバーで書き込み待ちの下書き(最大write-interval分)は
+//   復元されない。セッションはDBに保存して複数台で共有するが、下書きの最新の入力を確実に復元するには、
+//   ロードバランサーで同じ従業員を同じサーバーに振り分けるか、write-intervalを0(保存のたびに書き込む)とする
+// ・終了時は書き込み待ちの下書きを書き込んでから停止する
+@Service
+public class ReportDraftService implements DisposableBean {
+
+    // 下書きとして受け付ける長さの上限(日報の上限より長い入力途中の内容も保存できるようにする)
+    public static final int MAX_TITLE_LENGTH = 255;
+    public static final int MAX_CONTENT_LENGTH = 2000;
+
+    // 同じ従業員・画面の下書きは上書きする
+    // 入力を始めた日時以降に、下書きの日報(新規登録の場合は同じ日付の日報)が登録・更新・削除されている場合は書き込まない
+    // 書き込む値は別名(d)を付けた導出表とし、更新時も別名で参照する(VALUES()関数はMySQL 8.0.20以降で非推奨)
+    private static final String UPSERT_QUERY = "INSERT INTO report_drafts(employee_code, report_id, report_date, title, "
+            + "content, updated_at) SELECT * FROM (SELECT ? AS employee_code, ? AS report_id, ? AS report_date, "
+            + "? AS title, ? AS content, ? AS updated_at) AS d WHERE NOT EXISTS (SELECT 1 FROM reports r "
+            + "WHERE r.employee_code = d.employee_code AND r.updated_at >= ? AND (r.id = d.report_id "
+            + "OR (d.report_id = " + ReportDraft.NEW_REPORT_ID + " AND r.report_date = d.report_date "
+            + "AND r.delete_flg = 0))) "
+            + "ON DUPLICATE KEY UPDATE report_date = d.report_date, title = d.title, content = d.content, "
+            + "updated_at = d.updated_at";
+
+    private final ReportDraftRepository reportDraftRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // 書き込み待ちの下書き((社員番号, 日報ID) → 最新の下書き)
+    private final Map<ReportDraft.Key, PendingDraft> pendingDrafts = new ConcurrentHashMap<>();
+
+    // 書き込み待ちの下書きと入力を始めた日時
+    private record PendingDraft(ReportDraft draft, LocalDateTime since) {
+    }
+
+    // 定期的に書き込むスレッド(保存のたびに書き込む場合はnull)
+    private final ScheduledExecutorService writeExecutor;
+
+    @Autowired
+    public ReportDraftService(ReportDraftRepository reportDraftRepository, JdbcTemplate jdbcTemplate,
+            @Value("${app.report-draft.write-interval:10s}") Duration writeInterval) {
+        this.reportDraftRepository = reportDraftRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        if (writeInterval.isZero()) {
+            this.writeExecutor = null;
+            return;
+        }
+        this.writeExecutor = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("report-draft-writer-"));
+        this.writeExecutor.scheduleWithFixedDelay(this::flush, writeInterval.toMillis(), writeInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // 下書きを保存する(次回の書き込みまでは同じ従業員・画面の下書きを上書きするのみ)
+    // reportIdがnullの場合は新規登録画面の下書き、sinceは入力を始めた日時(nullの場合は保存した日時)
+    public void save(String employeeCode, LocalDate reportDate, Integer reportId, String title, String content,
+            LocalDateTime since) {
+        LocalDateTime now = LocalDateTime.now();
+        ReportDraft.Key key = key(employeeCode, reportId);
+        ReportDraft draft = new ReportDraft(employeeCode, key.getReportId(), reportDate, title, content, now);
+        pendingDrafts.put(key, new PendingDraft(draft, since == null || since.isAfter(now) ? now : since));
+        if (writeExecutor == null) {
+            flush();
+        }
+    }
+
+    // 従業員の画面の最新の下書きを取得(書き込み待ちの下書きを優先する。ない場合はnull)
+    // reportIdがnullの場合は新規登録画面の下書き
+    public ReportDraft findLatest(String employeeCode, Integer reportId) {
+        ReportDraft.Key key = key(employeeCode, reportId);
+        PendingDraft pending = pendingDrafts.get(key);
+        if (pending != null) {
+            return pending.draft();
+        }
+        return reportDraftRepository.findById(key).orElse(null);
+    }
+
+    // 日報の登録・更新後に、その画面の下書き(書き込み待ち・保存済み)を削除する
+    // reportIdがnullの場合は新規登録画面の下書き
+    // 書き込み中の下書きが削除後に書き込まれないよう、書き込みと同時には実行しない
+    public synchronized void discard(String employeeCode, Integer reportId) {
+        ReportDraft.Key key = key(employeeCode, reportId);
+        pendingDrafts.remove(key);
+        jdbcTemplate.update("DELETE FROM report_drafts WHERE employee_code = ? AND report_id = ?",
+                key.getEmployeeCode(), key.getReportId());
+    }
+
+    // 日報の削除後に、その日報の下書きを全従業員分削除する
+    // 書き込み待ちの下書きは従業員ごとに保持しているため全件から探す(削除の頻度は低い)
+    public synchronized void discardReport(Integer reportId) {
+        pendingDrafts.keySet().removeIf(key -> reportId.equals(key.getReportId()));
+        jdbcTemplate.update("DELETE FROM report_drafts WHERE report_id = ?", reportId);
+    }
+
+    private static ReportDraft.Key key(String employeeCode, Integer reportId) {
+        return new ReportDraft.Key(employeeCode, reportId == null ? ReportDraft.NEW_REPORT_ID : reportId);
+    }
+
+    // 書き込み待ちの下書きをまとめて書き込む
+    public synchronized void flush() {
+        List<PendingDraft> drafts = new ArrayList<>();
+        for (ReportDraft.Key key : pendingDrafts.keySet()) {
+            PendingDraft pending = pendingDrafts.remove(key);
+            if (pending != null) {
+                drafts.add(pending);
+            }
+        }
+        if (drafts.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>();
+        for (PendingDraft pending : drafts) {
+            ReportDraft draft = pending.draft();
+            args.add(new Object[] { draft.getEmployeeCode(), draft.getReportId(), Date.valueOf(draft.getReportDate()),
+                    draft.getTitle(), draft.getContent(), Timestamp.valueOf(draft.getUpdatedAt()),
+                    Timestamp.valueOf(pending.since()) });
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_QUERY, args);
+        } catch (DataAccessException e) {
+            // 書き込めなかった分は次回に再度書き込む(その間に新しい下書きが保存された場合はそちらを優先する)
+            drafts.forEach(pending -> pendingDrafts.putIfAbsent(
+                    new ReportDraft.Key(pending.draft().getEmployeeCode(), pending.draft().getReportId()), pending));
+        }
+    }
+
+    // 書き込み待ちの件数
+    public int getPendingCount() {
+        return pendingDrafts.size();
+    }
+
+    // 定期的な書き込みを停止し、書き込み待ちの下書きを書き込む
+    @Override
+    public void destroy() {
+        if (writeExecutor != null) {
+            writeExecutor.shutdownNow();
+        }
+        flush();
+    }
+}
@@ -0,0 +1,362 @@
+package com.techacademy.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techacademy.audit.AuditLogWriter;
+import com.techacademy.constants.ErrorKinds;
+import com.techacademy.constants.ErrorMessage;
+import com.techacademy.dto.ReportImportResult;
+import com.techacademy.dto.ReportKey;
+import com.techacademy.entity.AuditLog;
+import com.techacademy.entity.Report;
+import com.techacademy.entity.ReportContent;
+import com.techacademy.repository.ReportRepository;
+import com.techacademy.util.CsvUtils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+
+// 日報の一括登録(旧システムからの移行用 CSV・JSON)
+// 1行ずつ入力チェックを行い、エラーの行は登録せずに結果として返す(ファイル全体は中断しない)
+// 登録はbatchSize件ごとに1トランザクションでまとめて行う
+@Service
+public class ReportImportService {
+
+    // 画面に表示するエラーの上限
+    private static final int MAX_ERRORS = 1000;
+
+    // 日付の形式(yyyy-MM-dd または yyyy/M/d)
+    private static final DateTimeFormatter SLASH_DATE = DateTimeFormatter.ofPattern("uuuu/M/d");
+
+    // CSVの見出し(日報CSV出力と同じ見出し、またはJSONと同じ項目名) → 項目名
+    private static final Map<String, String> CSV_HEADERS = Map.of("日付", "reportDate", "reportDate", "reportDate",
+            "社員番号", "employeeCode", "employeeCode", "employeeCode", "タイトル", "title", "title", "title", "内容",
+            "content", "content", "content");
+    private static final List<String> FIELDS = List.of("reportDate", "employeeCode", "title", "content");
+
+    // 入力チェックエラーの項目名
+    private static final Map<String, String> FIELD_NAMES = Map.of("reportDate", "日付", "employeeCode", "社員番号",
+            "title", "タイトル", "content", "内容");
+
+    private final ReportRepository reportRepository;
+    private final EntityManager entityManager;
+    private final EmployeeService employeeService;
+    private final ReportSearchIndex reportSearchIndex;
+    private final ReportSummaryService reportSummaryService;
+    private final AuditLogWriter auditLogWriter;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    // 読み込んだ1行分のデータ(rowはデータの何件目か)
+    private record ImportRow(int row, Map<String, String> values) {
+    }
+
+    // 1行ずつ読み込む(終わりの場合はnull)
+    private interface RowSource {
+        ImportRow next() throws IOException;
+    }
+
+    // 登録の途中経過
+    private static class Progress {
+        private int total;
+        private int imported;
+        private int errorCount;
+        private final List<ReportImportResult.RowError> errors = new ArrayList<>();
+        // ファイル内で登録対象とした(従業員, 日付)
+        private final Set<ReportKey> keys = new HashSet<>();
+
+        private void error(int row, String message) {
+            errorCount++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(new ReportImportResult.RowError(row, message));
+            }
+        }
+
+        private ReportImportResult toResult() {
+            errors.sort(Comparator.comparingInt(ReportImportResult.RowError::row));
+            return new ReportImportResult(total, imported, errorCount, errors);
+        }
+    }
+
+    @Autowired
+    public ReportImportService(ReportRepository reportRepository, EntityManager entityManager,
+            EmployeeService employeeService, ReportSearchIndex reportSearchIndex,
+            ReportSummaryService reportSummaryService, AuditLogWriter auditLogWriter, Validator validator,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.report-import.batch-size:500}") int batchSize) {
+        this.reportRepository = reportRepository;
+        this.entityManager = entityManager;
+        this.employeeService = employeeService;
+        this.reportSearchIndex = reportSearchIndex;
+        this.reportSummaryService = reportSummaryService;
+        this.auditLogWriter = auditLogWriter;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    // CSVから登録(1行目は見出し 日付,社員番号,タイトル,内容 の列を使用し、その他の列は無視する)
+    public ReportImportResult importCsv(BufferedReader reader) throws IOException {
+        // 日報CSV出力のファイルはBOM付きのため読み飛ばす
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+
+        List<String> header = CsvUtils.readRow(reader);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; header != null && i < header.size(); i++) {
+            String field = CSV_HEADERS.get(header.get(i).trim());
+            if (field != null) {
+                columns.putIfAbsent(field, i);
+            }
+        }
+        List<String> missing = FIELDS.stream().filter(field -> !columns.containsKey(field)).map(FIELD_NAMES::get)
+                .toList();
+        if (!missing.isEmpty()) {
+            Progress progress = new Progress();
+            progress.error(0, "見出しに必要な列がありません: " + String.join(", ", missing));
+            return progress.toResult();
+        }
+
+        int[] row = { 0 };
+        return importRows(() -> {
+            List<String> values;
+            // 空行は読み飛ばす
+            do {
+                values = CsvUtils.readRow(reader);
+            } while (values != null && values.size() == 1 && values.get(0).isBlank());
+            if (values == null) {
+                return null;
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                fields.put(column.getKey(), column.getValue() < values.size() ? values.get(column.getValue()) : null);
+            }
+            return new ImportRow(++row[0], fields);
+        });
+    }
+
+    // JSONから登録(reportDate, employeeCode, title, content を項目に持つオブジェクトの配列)
+    // ファイル全体をメモリに読み込まないよう、配列の要素を1件ずつ読み込む
+    public ReportImportResult importJson(InputStream inputStream) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                Progress progress = new Progress();
+                progress.error(0, "日報の配列ではありません");
+                return progress.toResult();
+            }
+
+            int[] row = { 0 };
+            return importRows(() -> {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                if (token == null) {
+                    throw new IOException("配列が閉じられていません");
+                }
+                JsonNode node = objectMapper.readTree(parser);
+                Map<String, String> fields = new HashMap<>();
+                for (String field : FIELDS) {
+                    JsonNode value = node.get(field);
+                    fields.put(field, value == null || value.isNull() ? null : value.asText());
+                }
+                return new ImportRow(++row[0], fields);
+            });
+        }
+    }
+
+    private ReportImportResult importRows(RowSource source) {
+        Progress progress = new Progress();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        try {
+            ImportRow row;
+            while ((row = source.next()) != null) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    importBatch(batch, progress);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            // ファイルの途中で形式が崩れている場合は、そこまでの行を登録して終了する
+            progress.error(progress.total + batch.size() + 1, "ファイルの形式が正しくないため、以降の行は読み込めませんでした");
+        }
+        importBatch(batch, progress);
+        return progress.toResult();
+    }
+
+    // 1バッチ分の入力チェックと登録
+    private void importBatch(List<ImportRow> rows, Progress progress) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        progress.total += rows.size();
+
+        // 入力チェック
+        List<ImportRow> validRows = new ArrayList<>();
+        List<Report> reports = new ArrayList<>();
+        for (ImportRow row : rows) {
+            Report report = toReport(row, progress);
+            if (report != null) {
+                validRows.add(row);
+                reports.add(report);
+            }
+        }
+        if (reports.isEmpty()) {
+            return;
+        }
+
+        // 同一日付チェック(DBの登録済みの日報はバッチごとに1回で取得し、ファイル内の重複とあわせてメモリ上で判定する)
+        Set<String> employeeCodes = new HashSet<>();
+        LocalDate from = LocalDate.MAX;
+        LocalDate to = LocalDate.MIN;
+        for (Report report : reports) {
+            employeeCodes.add(report.getEmployeeCode());
+            from = report.getReportDate().isBefore(from) ? report.getReportDate() : from;
+            to = report.getReportDate().isAfter(to) ? report.getReportDate() : to;
+        }
+        Set<ReportKey> existing = new HashSet<>(reportRepository.findKeys(employeeCodes, from, to));
+
+        List<ImportRow> targetRows = new ArrayList<>();
+        List<Report> targets = new ArrayList<>();
+        for (int i = 0; i < reports.size(); i++) {
+            Report report = reports.get(i);
+            ReportKey key = new ReportKey(report.getEmployeeCode(), report.getReportDate());
+            if (existing.contains(key) || !progress.keys.add(key)) {
+                progress.error(validRows.get(i).row(), ErrorMessage.getErrorValue(ErrorKinds.DATECHECK_ERROR));
+                continue;
+            }
+            targetRows.add(validRows.get(i));
+            targets.add(report);
+        }
+
+        // まとめて登録し、失敗した場合(他の画面からの同時登録等)は1件ずつ登録し直してエラーの行を特定する
+        try {
+            insert(targets);
+            progress.imported += targets.size();
+        } catch (DataAccessException e) {
+            for (int i = 0; i < targets.size(); i++) {
+                Report report = targets.get(i);
+                report.setId(null);
+                try {
+                    insert(List.of(report));
+                    progress.imported++;
+                } catch (DataIntegrityViolationException ex) {
+                    // 同一日付の重複以外の制約違反は登録の失敗とする
+                    progress.error(targetRows.get(i).row(), ReportService.isDuplicateDate(ex)
+                            ? ErrorMessage.getErrorValue(ErrorKinds.DATECHECK_ERROR)
+                            : "登録に失敗しました");
+                } catch (DataAccessException ex) {
+                    progress.error(targetRows.get(i).row(), "登録に失敗しました");
+                }
+            }
+        }
+    }
+
+    // 1トランザクションで登録する(IDはシーケンスからまとめて採番されるため、INSERTはJDBCのバッチで送信される)
+    // 内容は採番された日報IDで別テーブルに登録する(日報・内容のテーブルごとにまとめて送信される)
+    private void insert(List<Report> reports) {
+        if (reports.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            reportRepository.saveAll(reports);
+            reports.forEach(report -> entityManager.persist(new ReportContent(report.getId(), report.getContent())));
+            reportRepository.flush();
+            reportSummaryService.addAll(reports);
+            reports.forEach(reportSearchIndex::updateAfterCommit);
+            // 画面からの登録と同様に、1件ごとに登録の監査ログを残す(操作した従業員は一括登録を実行した管理者)
+            reports.forEach(report -> auditLogWriter.publishAfterCommit(AuditLog.Action.CREATE,
+                    AuditLog.TargetType.REPORT, report.getId()));
+        });
+    }
+
+    // 1行分を日報に変換し、入力チェックを行う(エラーの場合はnull)
+    private Report toReport(ImportRow row, Progress progress) {
+        List<String> errors = new ArrayList<>();
+
+        LocalDate reportDate = parseDate(row.values().get("reportDate"));
+        if (reportDate == null) {
+            errors.add(FIELD_NAMES.get("reportDate") + ": 日付の形式(yyyy-MM-dd)で入力してください");
+        }
+
+        Report report = new Report();
+        report.setReportDate(reportDate);
+        report.setEmployeeCode(trim(row.values().get("employeeCode")));
+        report.setTitle(row.values().get("title"));
+        report.setContent(row.values().get("content"));
+
+        // 画面からの登録と同じ入力チェック
+        for (ConstraintViolation<Report> violation : validator.validate(report, Default.class, Report.Input.class)) {
+            String field = violation.getPropertyPath().toString();
+            errors.add(FIELD_NAMES.getOrDefault(field, field) + ": " + violation.getMessage());
+        }
+
+        if (report.getEmployeeCode() != null && !report.getEmployeeCode().isEmpty()
+                && employeeService.findByCode(report.getEmployeeCode()) == null) {
+            errors.add(FIELD_NAMES.get("employeeCode") + ": 存在しない社員番号です");
+        }
+
+        if (!errors.isEmpty()) {
+            errors.sort(null);
+            progress.error(row.row(), String.join(" / ", errors));
+            return null;
+        }
+
+        report.setDeleteFlg(false);
+        LocalDateTime now = LocalDateTime.now();
+        report.setCreatedAt(now);
+        report.setUpdatedAt(now);
+        return report;
+    }
+
+    private static LocalDate parseDate(String value) {
+        String text = trim(value);
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        try {
+            return text.contains("/") ? LocalDate.parse(text, SLASH_DATE) : LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
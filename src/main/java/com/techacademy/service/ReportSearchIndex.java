@@ -0,0 +1,774 @@
+package com.techacademy.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.techacademy.dto.ReportDocument;
+import com.techacademy.entity.Report;
+import com.techacademy.repository.ReportRepository;
+import com.techacademy.startup.StartupConfiguration;
+
+import jakarta.annotation.PreDestroy;
+
+// 日報のタイトル・内容の全文検索用インデックス(メモリ上の転置インデックス)
+// 日本語は単語の区切りがないため、文字の2-gram(隣り合う2文字)を単位として索引を作成する
+// 起動時にディスクへ保存したインデックスを読み込み、保存以降に更新された日報のみDBから反映する
+// 起動後は日報の登録・更新・削除のコミット時に差分を反映する
+// 複数のサーバーで動かす場合に他のサーバーでの更新も反映するため、catch-up-interval間隔でDBから差分を読み込む
+// ・語は語IDに置き換え、語ごとの出現情報は日報ID順に並べたlongの配列(日報ID・出現回数)で保持する
+//   (日報1件・語1つあたり、出現情報の8バイトと日報ごとの語IDの4バイト)
+@Component
+public class ReportSearchIndex implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportSearchIndex.class);
+
+    // 保存ファイルの形式のバージョン(形式を変更した場合は上げること。異なる場合は作り直す)
+    private static final int FORMAT_VERSION = 2;
+
+    // タイトルに含まれる語は内容の語より重く評価する
+    private static final int TITLE_WEIGHT = 3;
+
+    // 関連度(BM25)の係数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 差分反映時は、保存時点より少し前から読み込む(コミットが更新日時より遅れた日報の取りこぼしを防ぐ)
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+
+    // 全件作成時の読み込み開始日時
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ReportRepository reportRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path indexFile;
+    private final Duration catchUpInterval;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 語 → 語ID(1文字での検索のため、語の順に並べる)
+    private final TreeMap<String, Integer> termIds = new TreeMap<>();
+    // 語ID → 出現情報
+    private Posting[] postings = new Posting[0];
+    // 日報ID → 索引済みの日報(削除・保存時に使用)
+    private final Map<Integer, IndexedReport> reports = new HashMap<>();
+    // 社員番号(日報ごとに同じ文字列を持たないよう共有する)
+    private final Map<String, String> employeeCodes = new HashMap<>();
+    // 全日報の語数の合計(平均の算出用)
+    private long totalLength;
+    // 反映済みの日報の最新の更新日時
+    private LocalDateTime watermark = EPOCH;
+
+    // 他のサーバーでの更新の定期的な反映
+    private ScheduledExecutorService catchUpExecutor;
+
+    // 索引済みの日報(社員番号・語数・語ID(昇順))
+    private record IndexedReport(String employeeCode, int length, int[] termIds) {
+    }
+
+    // 語に分割した日報(語・出現回数・語数。語IDへの置き換えは書き込みロックを取得してから行う)
+    private record Tokens(String[] terms, int[] frequencies, int length) {
+    }
+
+    // 関連度を計算した日報(関連度の高い順、同じ場合は新しい日報順に並べる)
+    private record ScoredReport(int id, double score) {
+    }
+
+    private static final Comparator<ScoredReport> RANKING = Comparator.comparingDouble(ScoredReport::score)
+            .reversed().thenComparing(Comparator.comparingInt(ScoredReport::id).reversed());
+
+    // 検索結果(1ページ分の日報IDと全件数)
+    public record Hits(List<Integer> ids, int total) {
+    }
+
+    // 語ごとの出現情報(日報IDの昇順に (日報ID << 32 | 出現回数) を並べた配列)
+    // 削除した日報は出現回数を0として残し、1/4を超えた場合に詰める(従業員の削除など、まとめて削除する場合に配列を何度も詰めない)
+    private static final class Posting {
+
+        private static final Posting EMPTY = new Posting(new long[0], 0);
+
+        private long[] entries;
+        // 配列の使用中の長さ・削除していない日報の数
+        private int size;
+        private int live;
+
+        private Posting(long[] entries, int size) {
+            this.entries = entries;
+            this.size = size;
+            this.live = size;
+        }
+
+        private static long entry(int id, int frequency) {
+            return (long) id << 32 | frequency;
+        }
+
+        private static int id(long entry) {
+            return (int) (entry >>> 32);
+        }
+
+        private static int frequency(long entry) {
+            return (int) entry;
+        }
+
+        // from以降で、日報IDが指定した値以上となる最初の位置
+        private int seek(int id, int from) {
+            int low = from;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int middleId = id(entries[middle]);
+                if (middleId < id) {
+                    low = middle + 1;
+                } else if (middleId > id) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return low;
+        }
+
+        // 指定した位置の出現回数(日報が含まれない・削除済みの場合は0)
+        private int frequencyAt(int index, int id) {
+            return index < size && id(entries[index]) == id ? frequency(entries[index]) : 0;
+        }
+
+        private void put(int id, int frequency) {
+            // 新しい日報は末尾に追加するのみ
+            int index = size == 0 || id(entries[size - 1]) < id ? size : seek(id, 0);
+            if (index < size && id(entries[index]) == id) {
+                if (frequency(entries[index]) == 0) {
+                    live++;
+                }
+                entries[index] = entry(id, frequency);
+                return;
+            }
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(4, size + (size >> 1)));
+            }
+            System.arraycopy(entries, index, entries, index + 1, size - index);
+            entries[index] = entry(id, frequency);
+            size++;
+            live++;
+        }
+
+        private void remove(int id) {
+            int index = seek(id, 0);
+            if (frequencyAt(index, id) == 0) {
+                return;
+            }
+            entries[index] = entry(id, 0);
+            live--;
+            if (size - live > size / 4) {
+                compact();
+            }
+        }
+
+        // 削除した日報を詰め、余分な領域を解放する
+        private void compact() {
+            long[] compacted = new long[live];
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                if (frequency(entries[i]) != 0) {
+                    compacted[j++] = entries[i];
+                }
+            }
+            entries = compacted;
+            size = live;
+        }
+
+        // 複数の語の出現情報を日報ごとにまとめる(出現回数は合計する)
+        private static Posting merge(List<Posting> postings) {
+            int total = 0;
+            for (Posting posting : postings) {
+                total += posting.live;
+            }
+            long[] all = new long[total];
+            int count = 0;
+            for (Posting posting : postings) {
+                for (int i = 0; i < posting.size; i++) {
+                    if (frequency(posting.entries[i]) != 0) {
+                        all[count++] = posting.entries[i];
+                    }
+                }
+            }
+            // 日報IDは0以上のため、値の順に並べると日報ID順になる
+            Arrays.sort(all);
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                if (size > 0 && id(all[size - 1]) == id(all[i])) {
+                    all[size - 1] = entry(id(all[i]), frequency(all[size - 1]) + frequency(all[i]));
+                } else {
+                    all[size++] = all[i];
+                }
+            }
+            return new Posting(all, size);
+        }
+    }
+
+    @Autowired
+    public ReportSearchIndex(ReportRepository reportRepository, PlatformTransactionManager transactionManager,
+            @Value("${app.search.index-file:${java.io.tmpdir}/daily-report-system/report-search.idx}") String indexFile,
+            @Value("${app.search.catch-up-interval:1m}") Duration catchUpInterval) {
+        this.reportRepository = reportRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.indexFile = indexFile.isBlank() ? null : Path.of(indexFile);
+        this.catchUpInterval = catchUpInterval;
+    }
+
+    // 起動時(リクエストの受付開始前)にインデックスを作成する
+    @Override
+    public void afterSingletonsInstantiated() {
+        // CDSアーカイブ作成のための試行起動ではDBに接続しない(終了時の保存も行わない)
+        if (StartupConfiguration.isTrainingRun()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // 保存したインデックスがあれば、保存以降の差分のみ反映する
+            boolean loaded = load();
+            catchUp(loaded ? watermark.minus(CATCH_UP_MARGIN) : EPOCH);
+
+            // DBが作り直された場合など件数が一致しない場合は全件から作り直す
+            if (size() != reportRepository.count()) {
+                clear();
+                catchUp(EPOCH);
+            }
+        });
+        trim();
+        save();
+
+        if (!catchUpInterval.isZero() && catchUpExecutor == null) {
+            catchUpExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new CustomizableThreadFactory("report-search-catch-up-"));
+            catchUpExecutor.scheduleWithFixedDelay(this::catchUpPeriodically, catchUpInterval.toMillis(),
+                    catchUpInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // 終了時にインデックスを保存する
+    @PreDestroy
+    public void destroy() {
+        if (catchUpExecutor != null) {
+            catchUpExecutor.shutdownNow();
+        }
+        if (StartupConfiguration.isTrainingRun()) {
+            return;
+        }
+        save();
+    }
+
+    // 索引済みの日報の件数
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return reports.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 日報の登録・更新をコミット後に反映する
+    public void updateAfterCommit(Report report) {
+        // 分割はトランザクション中に行い、コミット後は索引の差し替えのみ行う
+        Integer id = report.getId();
+        String employeeCode = report.getEmployeeCode();
+        LocalDateTime updatedAt = report.getUpdatedAt();
+        Tokens tokens = tokenize(report.getTitle(), report.getContent());
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                put(id, employeeCode, tokens);
+                advance(updatedAt);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // 日報の削除をコミット後に反映する
+    public void removeAfterCommit(Integer id, LocalDateTime updatedAt) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(id);
+                advance(updatedAt);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // 指定従業員の日報の一括削除をコミット後に反映する
+    public void removeEmployeeAfterCommit(String employeeCode, LocalDateTime updatedAt) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                List<Integer> ids = reports.entrySet().stream()
+                        .filter(entry -> entry.getValue().employeeCode().equals(employeeCode)).map(Map.Entry::getKey)
+                        .toList();
+                ids.forEach(this::remove);
+                advance(updatedAt);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // キーワードに一致する日報を関連度順に検索する(employeeCodeがnullの場合は全従業員)
+    // 空白で区切った複数のキーワードは全て含む日報のみ対象とする
+    // 開始位置が一致した件数以上の場合は、件数のみを返す
+    public Hits search(String query, String employeeCode, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Posting> clauses = clauses(query);
+            if (clauses.isEmpty()) {
+                return new Hits(List.of(), 0);
+            }
+
+            // 件数の少ない語から順に絞り込む
+            clauses.sort(Comparator.comparingInt(posting -> posting.live));
+            double averageLength = reports.isEmpty() ? 1 : (double) totalLength / reports.size();
+            double[] idf = new double[clauses.size()];
+            for (int i = 0; i < clauses.size(); i++) {
+                int df = clauses.get(i).live;
+                idf[i] = Math.log(1 + (reports.size() - df + 0.5) / (df + 0.5));
+            }
+
+            // 表示するページまでの上位のみを保持する(一致した日報全体は並べ替えない)
+            // 出現情報はいずれも日報ID順のため、2つ目以降の語は前回の位置から先のみを探す
+            int limitRank = offset >= reports.size() ? 0 : (int) Math.min(offset + limit, Integer.MAX_VALUE);
+            PriorityQueue<ScoredReport> top = new PriorityQueue<>(RANKING.reversed());
+            int[] positions = new int[clauses.size()];
+            int total = 0;
+            Posting first = clauses.get(0);
+            candidates: for (int candidate = 0; candidate < first.size; candidate++) {
+                long entry = first.entries[candidate];
+                if (Posting.frequency(entry) == 0) {
+                    continue;
+                }
+                int id = Posting.id(entry);
+                IndexedReport report = reports.get(id);
+                if (employeeCode != null && !employeeCode.equals(report.employeeCode())) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * report.length() / averageLength);
+                double score = 0;
+                for (int i = 0; i < clauses.size(); i++) {
+                    int frequency;
+                    if (i == 0) {
+                        frequency = Posting.frequency(entry);
+                    } else {
+                        Posting posting = clauses.get(i);
+                        positions[i] = posting.seek(id, positions[i]);
+                        frequency = posting.frequencyAt(positions[i], id);
+                    }
+                    if (frequency == 0) {
+                        continue candidates;
+                    }
+                    score += idf[i] * frequency * (K1 + 1) / (frequency + norm);
+                }
+                total++;
+                if (top.size() < limitRank) {
+                    top.add(new ScoredReport(id, score));
+                } else if (limitRank > 0 && (score > top.peek().score()
+                        || score == top.peek().score() && id > top.peek().id())) {
+                    top.poll();
+                    top.add(new ScoredReport(id, score));
+                }
+            }
+
+            List<ScoredReport> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING);
+            List<Integer> ids = ranked.stream().skip(offset).map(ScoredReport::id).toList();
+            return new Hits(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // キーワードを語(2-gram)ごとの出現情報に変換する
+    // 1文字のキーワードは、その文字で始まる全ての語の出現情報をまとめる
+    private List<Posting> clauses(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (int[] run : runs(query)) {
+            if (run.length == 1) {
+                prefixes.add(Character.toString(run[0]));
+            }
+            for (int i = 0; i + 1 < run.length; i++) {
+                terms.add(new String(run, i, 2));
+            }
+        }
+
+        List<Posting> clauses = new ArrayList<>();
+        for (String term : terms) {
+            Integer termId = termIds.get(term);
+            clauses.add(termId == null ? Posting.EMPTY : postings[termId]);
+        }
+        for (String prefix : prefixes) {
+            List<Posting> matched = new ArrayList<>();
+            termIds.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()
+                    .forEach(termId -> matched.add(postings[termId]));
+            clauses.add(Posting.merge(matched));
+        }
+        return clauses;
+    }
+
+    // 日報のタイトル・内容を語に分割する
+    private static Tokens tokenize(String title, String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(title, TITLE_WEIGHT, frequencies);
+        tokenize(content, 1, frequencies);
+
+        String[] terms = new String[frequencies.size()];
+        int[] counts = new int[frequencies.size()];
+        int length = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            terms[i] = entry.getKey();
+            counts[i] = entry.getValue();
+            length += entry.getValue();
+            i++;
+        }
+        return new Tokens(terms, counts, length);
+    }
+
+    // 文字の連なりごとに、隣り合う2文字を1語とする(連なりの末尾の文字は1文字で1語とする)
+    // 末尾の1文字も語とすることで、全ての文字がいずれかの語の先頭となり1文字での検索ができる
+    private static void tokenize(String text, int weight, Map<String, Integer> frequencies) {
+        if (text == null) {
+            return;
+        }
+        for (int[] run : runs(text)) {
+            for (int i = 0; i < run.length; i++) {
+                String term = new String(run, i, i + 1 < run.length ? 2 : 1);
+                frequencies.merge(term, weight, Integer::sum);
+            }
+        }
+    }
+
+    // 全角・半角、大文字・小文字を揃え、文字・数字の連なり(空白・記号で区切られた部分)に分ける
+    private static List<int[]> runs(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int[] codePoints = normalized.codePoints().toArray();
+
+        List<int[]> runs = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= codePoints.length; i++) {
+            boolean letter = i < codePoints.length && Character.isLetterOrDigit(codePoints[i]);
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                int[] run = new int[i - start];
+                System.arraycopy(codePoints, start, run, 0, run.length);
+                runs.add(run);
+                start = -1;
+            }
+        }
+        return runs;
+    }
+
+    // 以下は書き込みロックを取得した状態で呼び出すこと
+
+    // 語IDを取得する(初めての語の場合は採番する)
+    private int termId(String term) {
+        Integer termId = termIds.get(term);
+        if (termId != null) {
+            return termId;
+        }
+        int newId = termIds.size();
+        termIds.put(term, newId);
+        if (newId == postings.length) {
+            postings = Arrays.copyOf(postings, Math.max(1024, newId + (newId >> 1)));
+        }
+        postings[newId] = new Posting(new long[1], 0);
+        return newId;
+    }
+
+    // 日報を追加・差し替える
+    // 差し替えの場合は、変更前後の両方に含まれる語は出現回数の更新のみ行う(出現情報の配列を詰め直さない)
+    private void put(Integer id, String employeeCode, Tokens tokens) {
+        // 語ID順に並べる((語ID << 32 | 出現回数) の値の順)
+        long[] sorted = new long[tokens.terms().length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = (long) termId(tokens.terms()[i]) << 32 | tokens.frequencies()[i];
+        }
+        Arrays.sort(sorted);
+        int[] newTermIds = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            newTermIds[i] = (int) (sorted[i] >>> 32);
+        }
+
+        IndexedReport old = reports.get(id);
+        if (old != null) {
+            totalLength -= old.length();
+            // 変更後に含まれなくなった語のみ削除する
+            int j = 0;
+            for (int oldTermId : old.termIds()) {
+                while (j < newTermIds.length && newTermIds[j] < oldTermId) {
+                    j++;
+                }
+                if (j == newTermIds.length || newTermIds[j] != oldTermId) {
+                    postings[oldTermId].remove(id);
+                }
+            }
+        }
+        for (long termAndFrequency : sorted) {
+            postings[(int) (termAndFrequency >>> 32)].put(id, (int) termAndFrequency);
+        }
+        reports.put(id, new IndexedReport(employeeCodes.computeIfAbsent(employeeCode, code -> code),
+                tokens.length(), newTermIds));
+        totalLength += tokens.length();
+    }
+
+    private void remove(Integer id) {
+        IndexedReport report = reports.remove(id);
+        if (report == null) {
+            return;
+        }
+        totalLength -= report.length();
+        for (int termId : report.termIds()) {
+            postings[termId].remove(id);
+        }
+    }
+
+    private void advance(LocalDateTime updatedAt) {
+        if (updatedAt != null && updatedAt.isAfter(watermark)) {
+            watermark = updatedAt;
+        }
+    }
+
+    private void clearUnlocked() {
+        termIds.clear();
+        postings = new Posting[0];
+        reports.clear();
+        employeeCodes.clear();
+        totalLength = 0;
+        watermark = EPOCH;
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            clearUnlocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 全件の作成後に、出現情報の配列の余分な領域を解放する
+    private void trim() {
+        lock.writeLock().lock();
+        try {
+            for (int termId = 0; termId < termIds.size(); termId++) {
+                postings[termId].compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 指定日時以降に更新・削除された日報をDBから読み込んで反映する(トランザクション内で呼び出すこと)
+    // 全件の作成時は、出現情報の配列の末尾に追加するのみとなるよう日報ID順に読み込む
+    private void catchUp(LocalDateTime since) {
+        boolean full = since.equals(EPOCH);
+        try (Stream<ReportDocument> stream = full ? reportRepository.streamAllOrderById()
+                : reportRepository.streamByUpdatedAtGreaterThanEqual(since)) {
+            Iterator<ReportDocument> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                ReportDocument report = iterator.next();
+                Tokens tokens = tokenize(report.title(), report.content());
+                lock.writeLock().lock();
+                try {
+                    put(report.id(), report.employeeCode(), tokens);
+                    advance(report.updatedAt());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+        if (full) {
+            return;
+        }
+
+        List<Integer> deletedIds = reportRepository.findDeletedIdsUpdatedSince(since);
+        lock.writeLock().lock();
+        try {
+            deletedIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 他のサーバーで登録・更新・削除された日報を反映する(反映済みの最新の更新日時から少し前以降を読み込む)
+    // DBに接続できない場合は次回に再度読み込む
+    private void catchUpPeriodically() {
+        LocalDateTime since;
+        lock.readLock().lock();
+        try {
+            since = watermark.minus(CATCH_UP_MARGIN);
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> catchUp(since));
+        } catch (DataAccessException e) {
+            logger.warn("検索インデックスへの差分の反映に失敗しました", e);
+        }
+    }
+
+    // コミット後に実行する(トランザクション外の場合はすぐに実行する)
+    private static void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    // インデックスをファイルに保存する(書き込み途中のファイルを読み込まないよう一時ファイルから置き換える)
+    // 語(語ID順)と語ごとの出現情報、日報ごとの社員番号・語数・語IDを保存する
+    private void save() {
+        if (indexFile == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            Files.createDirectories(indexFile.toAbsolutePath().getParent());
+            Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary))))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(watermark.toString());
+                String[] terms = new String[termIds.size()];
+                termIds.forEach((term, termId) -> terms[termId] = term);
+                out.writeInt(terms.length);
+                for (int termId = 0; termId < terms.length; termId++) {
+                    Posting posting = postings[termId];
+                    out.writeUTF(terms[termId]);
+                    out.writeInt(posting.live);
+                    for (int i = 0; i < posting.size; i++) {
+                        if (Posting.frequency(posting.entries[i]) != 0) {
+                            out.writeLong(posting.entries[i]);
+                        }
+                    }
+                }
+                out.writeInt(reports.size());
+                for (Map.Entry<Integer, IndexedReport> entry : reports.entrySet()) {
+                    IndexedReport report = entry.getValue();
+                    out.writeInt(entry.getKey());
+                    out.writeUTF(report.employeeCode());
+                    out.writeInt(report.length());
+                    out.writeInt(report.termIds().length);
+                    for (int termId : report.termIds()) {
+                        out.writeInt(termId);
+                    }
+                }
+            }
+            try {
+                Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // 保存できなくても次回起動時に全件から作り直すため、処理は継続する
+            logger.warn("検索インデックスを保存できませんでした: {}", indexFile, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 保存したインデックスを読み込む(ファイルがない、または形式が異なる場合はfalse)
+    private boolean load() {
+        if (indexFile == null || !Files.isRegularFile(indexFile)) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(
+                new GZIPInputStream(new BufferedInputStream(Files.newInputStream(indexFile))))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return false;
+            }
+            LocalDateTime savedWatermark = LocalDateTime.parse(in.readUTF());
+            int termCount = in.readInt();
+            postings = new Posting[termCount];
+            for (int termId = 0; termId < termCount; termId++) {
+                termIds.put(in.readUTF(), termId);
+                long[] entries = new long[in.readInt()];
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i] = in.readLong();
+                }
+                postings[termId] = new Posting(entries, entries.length);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Integer id = in.readInt();
+                String employeeCode = employeeCodes.computeIfAbsent(in.readUTF(), code -> code);
+                int length = in.readInt();
+                int[] reportTermIds = new int[in.readInt()];
+                for (int j = 0; j < reportTermIds.length; j++) {
+                    reportTermIds[j] = in.readInt();
+                }
+                reports.put(id, new IndexedReport(employeeCode, length, reportTermIds));
+                totalLength += length;
+            }
+            watermark = savedWatermark;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // 壊れたファイルは使わず全件から作り直す
+            logger.warn("検索インデックスを読み込めないため全件から作成します: {}", indexFile, e);
+            clearUnlocked();
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -1,21 +1,48 @@
 package com.techacademy.service;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.techacademy.audit.AuditLogWriter;
 import com.techacademy.constants.ErrorKinds;
+import com.techacademy.dto.ReportDocument;
+import com.techacademy.dto.ReportListRow;
+import com.techacademy.dto.ReportPage;
+import com.techacademy.dto.ReportSearchPage;
+import com.techacademy.dto.ReportVersion;
+import com.techacademy.entity.AuditLog;
 import com.techacademy.entity.Employee;
 import com.techacademy.entity.Report;
+import com.techacademy.entity.ReportContent;
 import com.techacademy.repository.EmployeeRepository;
+import com.techacademy.repository.ReportContentRepository;
 import com.techacademy.repository.ReportRepository;
+import com.techacademy.util.CsvUtils;
+
+import jakarta.persistence.EntityManager;
 
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,28 +56,104 @@ import org.springframework.stereotype.Service;
 public class ReportService {
 
     private final ReportRepository reportRepository;
+    private final ReportContentRepository reportContentRepository;
+    private final EntityManager entityManager;
+    private final ReportSearchIndex reportSearchIndex;
+    private final ReportSummaryService reportSummaryService;
+    private final AuditLogWriter auditLogWriter;
 //    private final PasswordEncoder passwordEncoder;
 //
     @Autowired
 //    public ReportService(ReportRepository reportRepository, PasswordEncoder passwordEncoder) {
-    public ReportService(ReportRepository reportRepository) {
+    public ReportService(ReportRepository reportRepository, ReportContentRepository reportContentRepository,
+            EntityManager entityManager, ReportSearchIndex reportSearchIndex,
+            ReportSummaryService reportSummaryService, AuditLogWriter auditLogWriter) {
         this.reportRepository = reportRepository;
+        this.reportContentRepository = reportContentRepository;
+        this.entityManager = entityManager;
+        this.reportSearchIndex = reportSearchIndex;
+        this.reportSummaryService = reportSummaryService;
+        this.auditLogWriter = auditLogWriter;
 //        this.passwordEncoder = passwordEncoder;
     }
 
-    //同じユーザーで同一日に日報がないかチェック
-    public boolean existsByEmployeeCodeAndReportDate(String employeeCode, LocalDate reportDate) {
-        return reportRepository.existsByEmployeeCodeAndReportDate(employeeCode, reportDate);
+    // 日報一覧の1ページ分を取得(キーセットページング)
+    // (日付 降順, ID 降順)の並びでカーソル行の次または前から取得するため、件数が増えても1ページの負荷は一定
+    // employeeCodeがnullの場合は全従業員、カーソルがnullの場合は先頭ページ、backwardがtrueの場合は前ページ
+    @Transactional(readOnly = true)
+    public ReportPage findPage(String employeeCode, LocalDate cursorDate, Integer cursorId, boolean backward,
+            int size) {
+
+        // 次ページの有無を判定するため1件多く取得する
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        // 先頭ページ
+        if (cursorDate == null || cursorId == null) {
+            List<ReportListRow> rows = employeeCode == null ? reportRepository.findListRows(limit)
+                    : reportRepository.findListRowsByEmployeeCode(employeeCode, limit);
+            return new ReportPage(trim(rows, size), rows.size() > size, false);
+        }
+
+        // 次ページ(古い側)
+        if (!backward) {
+            List<ReportListRow> rows = employeeCode == null
+                    ? reportRepository.findListRowsAfter(cursorDate, cursorId, limit)
+                    : reportRepository.findListRowsByEmployeeCodeAfter(employeeCode, cursorDate, cursorId, limit);
+            return new ReportPage(trim(rows, size), rows.size() > size, true);
+        }
+
+        // 前ページ(新しい側) 昇順で取得されるため反転する
+        List<ReportListRow> rows = employeeCode == null
+                ? reportRepository.findListRowsBefore(cursorDate, cursorId, limit)
+                : reportRepository.findListRowsByEmployeeCodeBefore(employeeCode, cursorDate, cursorId, limit);
+        if (rows.size() <= size) {
+            // 先頭まで戻った場合は件数が揃うよう先頭ページを返す
+            return findPage(employeeCode, null, null, false, size);
+        }
+        List<ReportListRow> page = new ArrayList<>(trim(rows, size));
+        Collections.reverse(page);
+        return new ReportPage(page, true, true);
+    }
+
+    // キーワードで日報を検索し、関連度順の1ページ分を取得する(employeeCodeがnullの場合は全従業員)
+    // 検索は全文検索用インデックスで行い、DBからは表示する1ページ分のみ取得する
+    @Transactional(readOnly = true)
+    public ReportSearchPage search(String query, String employeeCode, int page, int size) {
+        // ページ番号はリクエストで指定されるため、開始位置はlongで計算する(intではあふれて負の値になる)
+        ReportSearchIndex.Hits hits = reportSearchIndex.search(query, employeeCode, (long) page * size, size);
+        if (hits.ids().isEmpty()) {
+            return new ReportSearchPage(List.of(), hits.total(), page, size);
+        }
+
+        // IN句の結果は順不同のため、インデックスの関連度順に並べ替える
+        Map<Integer, ReportListRow> rows = new HashMap<>();
+        reportRepository.findListRowsByIdIn(hits.ids()).forEach(row -> rows.put(row.id(), row));
+        List<ReportListRow> ranked = hits.ids().stream().map(rows::get).filter(Objects::nonNull).toList();
+        return new ReportSearchPage(ranked, hits.total(), page, size);
     }
 
-    //同じユーザーで同一日に他の日報がないかチェック
-    public List<Report> findByEmployeeCodeAndReportDateAndId(String employeeCode, LocalDate reportDate, Integer id) {
-        return reportRepository.findByEmployeeCodeAndReportDateAndIdNot(employeeCode, reportDate, id);
+    // 判定用に余分に取得した1件を除く
+    private List<ReportListRow> trim(List<ReportListRow> rows, int size) {
+        return rows.size() > size ? rows.subList(0, size) : rows;
     }
 
-    // 日報一覧表示処理
-    public List<Report> findAll() {
-        return reportRepository.findAll();
+    // 期間内の日報をCSV形式で書き出す(employeeCodeがnullの場合は全従業員)
+    // 1件ずつ読み込んで書き出し、読み込んだ行は永続化コンテキストで管理されないため件数によらずメモリ使用量は一定
+    @Transactional(readOnly = true)
+    public void writeCsv(String employeeCode, LocalDate from, LocalDate to, Writer writer) throws IOException {
+        try (Stream<ReportDocument> reports = employeeCode == null
+                ? reportRepository.streamByReportDateBetween(from, to)
+                : reportRepository.streamByEmployeeCodeAndReportDateBetween(employeeCode, from, to)) {
+
+            CsvUtils.writeRow(writer, "ID", "日付", "社員番号", "タイトル", "内容", "登録日時", "更新日時");
+
+            Iterator<ReportDocument> iterator = reports.iterator();
+            while (iterator.hasNext()) {
+                ReportDocument report = iterator.next();
+                CsvUtils.writeRow(writer, report.id(), report.reportDate(), report.employeeCode(), report.title(),
+                        report.content(), report.createdAt(), report.updatedAt());
+            }
+        }
     }
 
     // 日報保存
@@ -63,11 +166,37 @@ public class ReportService {
         report.setCreatedAt(now);
         report.setUpdatedAt(now);
 
-        reportRepository.save(report);
+        // 同一日付の重複はDBの一意制約で検出する(DataIntegrityViolationExceptionとなる)
+        reportRepository.saveAndFlush(report);
+        // 内容は採番された日報IDで別テーブルに登録する
+        entityManager.persist(new ReportContent(report.getId(), report.getContent()));
+        reportSummaryService.add(report);
+        reportSearchIndex.updateAfterCommit(report);
+        auditLogWriter.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, report.getId());
         return ErrorKinds.SUCCESS;
     }
 
-    // 1件を検索
+    // 同一従業員・同一日付の一意制約違反の場合はtrue
+    // 内容・集計の登録時の違反やNOT NULL違反等も同じ例外となるため、違反した制約の名前で判定する
+    // (Hibernateが制約名を取得できない場合は、DBのエラーメッセージに制約名が含まれるかで判定する)
+    public static boolean isDuplicateDate(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return containsUniqueEmployeeDate(violation.getConstraintName());
+            }
+            if (cause instanceof SQLException) {
+                return cause.getMessage() != null && containsUniqueEmployeeDate(cause.getMessage());
+            }
+        }
+        return false;
+    }
+
+    // 制約名・メッセージはDBによりスキーマ名が付く・大文字になる等の違いがあるため、大文字小文字を区別せず含まれるかで判定する
+    private static boolean containsUniqueEmployeeDate(String text) {
+        return text.toLowerCase(Locale.ROOT).contains(Report.UNIQUE_EMPLOYEE_DATE);
+    }
+
+    // 1件を検索(内容は読み込まない)
     public Report findByReport(Integer id) {
         // findByIdで検索
         Optional<Report> option = reportRepository.findById(id);
@@ -76,6 +205,20 @@ public class ReportService {
         return report;
     }
 
+    // 1件を内容とあわせて検索(詳細画面・更新画面用)
+    public Report findWithContent(Integer id) {
+        Report report = findByReport(id);
+        if (report != null) {
+            reportContentRepository.findById(id).ifPresent(content -> report.setContent(content.getContent()));
+        }
+        return report;
+    }
+
+    // 1件の版を検索(存在しない場合はnull)
+    public ReportVersion findVersion(Integer id) {
+        return reportRepository.findVersionById(id).orElse(null);
+    }
+
     // 現在のユーザーの社員番号を取得
     public String getCurrentEmployeeCode() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -83,9 +226,14 @@ public class ReportService {
         return userDetails.getUsername();
     }
 
-    //日報の従業員を取得
-    public List<Report> findByEmployeeCode(String employeeCode) {
-        return reportRepository.findByEmployeeCode(employeeCode);
+    // 指定従業員の日報をまとめて論理削除(従業員削除時に使用)
+    @Transactional
+    public int deleteByEmployeeCode(String employeeCode) {
+        LocalDateTime now = LocalDateTime.now();
+        int count = reportRepository.softDeleteByEmployeeCode(employeeCode, now);
+        reportSummaryService.removeEmployee(employeeCode);
+        reportSearchIndex.removeEmployeeAfterCommit(employeeCode, now);
+        return count;
     }
 
     // 従業員削除
@@ -94,8 +242,11 @@ public class ReportService {
 
         Report report = findByReport(id);
         LocalDateTime now = LocalDateTime.now();
-        report.setUpdatedAt(now);
-        report.setDeleteFlg(true);
+        // 読み込んだ日報は内容を持たないため、エンティティを更新せずにUPDATE文で論理削除する
+        reportRepository.softDeleteById(id, now);
+        reportSummaryService.remove(report.getEmployeeCode(), report.getReportDate());
+        reportSearchIndex.removeAfterCommit(id, now);
+        auditLogWriter.publishAfterCommit(AuditLog.Action.DELETE, AuditLog.TargetType.REPORT, id);
 
         return ErrorKinds.SUCCESS;
     }
@@ -105,6 +256,8 @@ public class ReportService {
     public ErrorKinds renew(Report report, Integer id) {
 
         Report report_tmp = findByReport(id);
+        // 保存するとreport_tmpにも変更後の内容が反映されるため、集計の更新用に変更前の日付を控えておく
+        LocalDate oldReportDate = report_tmp.getReportDate();
 
         report.setDeleteFlg(false);
 
@@ -113,7 +266,13 @@ public class ReportService {
         report.setEmployeeCode(report_tmp.getEmployeeCode());
         report.setUpdatedAt(now);
 
-        reportRepository.save(report);
+        // 同一日付の重複はDBの一意制約で検出する(DataIntegrityViolationExceptionとなる)
+        reportRepository.saveAndFlush(report);
+        // 内容が変わっていない場合は更新されない
+        reportContentRepository.save(new ReportContent(id, report.getContent()));
+        reportSummaryService.move(report, oldReportDate);
+        reportSearchIndex.updateAfterCommit(report);
+        auditLogWriter.publishAfterCommit(AuditLog.Action.UPDATE, AuditLog.TargetType.REPORT, id);
         return ErrorKinds.SUCCESS;
     }
 
@@ -0,0 +1,160 @@
+package com.techacademy.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.techacademy.dto.ReportSummaryRow;
+import com.techacademy.dto.ReportSummaryTable;
+import com.techacademy.entity.Report;
+import com.techacademy.entity.ReportSummary;
+import com.techacademy.repository.ReportRepository;
+import com.techacademy.repository.ReportSummaryRepository;
+import com.techacademy.startup.StartupConfiguration;
+
+// 従業員別・月別の日報件数の集計テーブルの更新・参照
+// 日報の登録・更新・削除と同じトランザクションで差分を反映するため、集計表の表示は日報の件数によらず集計テーブルのみを参照する
+@Service
+public class ReportSummaryService implements SmartInitializingSingleton {
+
+    // 集計行を更新する順序(複数の行を更新する場合に順序を揃え、同時更新時のデッドロックを避ける)
+    private static final Comparator<ReportSummary.Key> KEY_ORDER = Comparator
+            .comparing(ReportSummary.Key::getEmployeeCode).thenComparing(ReportSummary.Key::getReportMonth);
+
+    private final ReportSummaryRepository reportSummaryRepository;
+    private final ReportRepository reportRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ReportSummaryService(ReportSummaryRepository reportSummaryRepository, ReportRepository reportRepository,
+            PlatformTransactionManager transactionManager) {
+        this.reportSummaryRepository = reportSummaryRepository;
+        this.reportRepository = reportRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // 起動時に集計テーブルが空で日報がある場合は、日報テーブルから作成する(初期データ・既存データの取り込み)
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (StartupConfiguration.isTrainingRun()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (reportSummaryRepository.count() == 0 && reportRepository.count() > 0) {
+                rebuildSummaries();
+            }
+        });
+    }
+
+    // 日報1件の登録を反映
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Report report) {
+        addAll(List.of(report));
+    }
+
+    // 複数の日報の登録を反映(従業員・月ごとにまとめて加算する)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(Collection<Report> reports) {
+        Map<ReportSummary.Key, ReportSummary> summaries = new TreeMap<>(KEY_ORDER);
+        for (Report report : reports) {
+            LocalDate month = report.getReportDate().withDayOfMonth(1);
+            ReportSummary summary = summaries.computeIfAbsent(
+                    new ReportSummary.Key(report.getEmployeeCode(), month), key -> {
+                        ReportSummary s = new ReportSummary();
+                        s.setLastReportDate(report.getReportDate());
+                        return s;
+                    });
+            summary.setReportCount(summary.getReportCount() + 1);
+            if (report.getReportDate().isAfter(summary.getLastReportDate())) {
+                summary.setLastReportDate(report.getReportDate());
+            }
+        }
+        summaries.forEach((key, summary) -> reportSummaryRepository.add(key.getEmployeeCode(), key.getReportMonth(),
+                summary.getReportCount(), summary.getLastReportDate()));
+    }
+
+    // 日報1件の削除を反映
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(String employeeCode, LocalDate reportDate) {
+        YearMonth month = YearMonth.from(reportDate);
+        reportSummaryRepository.subtract(employeeCode, month.atDay(1), month.atEndOfMonth(), 1);
+        reportSummaryRepository.deleteEmpty(employeeCode, month.atDay(1));
+    }
+
+    // 日報の日付の変更を反映(変更前の日付から削除し、変更後の日付で登録したものとして扱う)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void move(Report report, LocalDate oldReportDate) {
+        if (report.getReportDate().equals(oldReportDate)) {
+            return;
+        }
+        remove(report.getEmployeeCode(), oldReportDate);
+        add(report);
+    }
+
+    // 指定従業員の集計を削除(従業員削除時に使用)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeEmployee(String employeeCode) {
+        reportSummaryRepository.deleteByEmployeeCode(employeeCode);
+    }
+
+    // 集計テーブルを日報テーブルから作り直す(導入時の取り込み・不整合時の復旧用)
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> rebuildSummaries());
+    }
+
+    // 先に集計行を削除して行ロックを取得してから日報を集計する
+    // (集計中に登録された日報は、その加算が再集計のコミットまで待たされるため二重に数えられない)
+    private void rebuildSummaries() {
+        reportSummaryRepository.deleteAllInBatch();
+        reportSummaryRepository.saveAll(reportSummaryRepository.summarizeReports());
+    }
+
+    // 1年分の従業員別・月別の日報件数
+    @Transactional(readOnly = true)
+    public ReportSummaryTable findYear(int year) {
+        List<ReportSummaryRow> rows = reportSummaryRepository.findRows(LocalDate.of(year, 1, 1),
+                LocalDate.of(year, 12, 1));
+
+        // 従業員ごとに12か月分の件数へまとめる(行は社員番号・月の順に取得される)
+        Map<String, List<ReportSummaryRow>> rowsByEmployee = new LinkedHashMap<>();
+        for (ReportSummaryRow row : rows) {
+            rowsByEmployee.computeIfAbsent(row.employeeCode(), code -> new ArrayList<>()).add(row);
+        }
+
+        int[] monthTotals = new int[12];
+        List<ReportSummaryTable.Line> lines = new ArrayList<>();
+        for (List<ReportSummaryRow> employeeRows : rowsByEmployee.values()) {
+            Integer[] counts = new Integer[12];
+            Arrays.fill(counts, 0);
+            int total = 0;
+            LocalDate lastReportDate = null;
+            for (ReportSummaryRow row : employeeRows) {
+                int index = row.reportMonth().getMonthValue() - 1;
+                counts[index] = row.reportCount();
+                monthTotals[index] += row.reportCount();
+                total += row.reportCount();
+                lastReportDate = row.lastReportDate();
+            }
+            ReportSummaryRow first = employeeRows.get(0);
+            lines.add(new ReportSummaryTable.Line(first.employeeCode(), first.employeeName(), List.of(counts), total,
+                    lastReportDate));
+        }
+        return new ReportSummaryTable(year, lines, Arrays.stream(monthTotals).boxed().toList(),
+                Arrays.stream(monthTotals).sum());
+    }
+}
@@ -1,46 +1,64 @@
 package com.techacademy.service;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.techacademy.entity.Employee;
+import com.techacademy.entity.Employee.Role;
 
-public class UserDetail implements UserDetails {
-    private static final long serialVersionUID = 1L;
+// ログイン中の従業員
+// セッション(DB)に保存されるため、従業員のエンティティではなく社員番号・氏名・権限のみを保持する
+// パスワードのハッシュは認証時にのみ使用し、認証後に消去する(セッションには保存しない)
+public class UserDetail implements UserDetails, CredentialsContainer {
+    private static final long serialVersionUID = 2L;
 
-    private final Employee employee;
-    private final List<SimpleGrantedAuthority> authorities;
+    private final String code;
+    private final String name;
+    private final Role role;
+    private transient String password;
 
     public UserDetail(Employee employee) {
-        this.employee = employee;
+        this.code = employee.getCode();
+        this.name = employee.getName();
+        this.role = employee.getRole();
+        this.password = employee.getPassword();
+    }
+
+    public String getCode() {
+        return code;
+    }
 
-        List<SimpleGrantedAuthority> authorities = new ArrayList<SimpleGrantedAuthority>();
-        authorities.add(new SimpleGrantedAuthority(employee.getRole().toString()));
-        this.authorities = authorities;
+    public String getName() {
+        return name;
     }
 
-    public Employee getEmployee() {
-        return employee;
+    public Role getRole() {
+        return role;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return authorities;
+        return List.of(new SimpleGrantedAuthority(role.toString()));
     }
 
     @Override
     public String getPassword() {
-        return employee.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return employee.getCode();
+        return code;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
     }
 
     @Override
@@ -1,32 +1,52 @@
 package com.techacademy.service;
 
-import java.util.Optional;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.techacademy.entity.Employee;
 import com.techacademy.repository.EmployeeRepository;
 
 @Service
-public class UserDetailService implements UserDetailsService {
+public class UserDetailService implements UserDetailsService, UserDetailsPasswordService {
     private final EmployeeRepository employeeRepository;
+    private final EmployeeCache employeeCache;
 
     @Autowired
-    public UserDetailService(EmployeeRepository repository) {
+    public UserDetailService(EmployeeRepository repository, EmployeeCache employeeCache) {
         this.employeeRepository = repository;
+        this.employeeCache = employeeCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<Employee> employee = employeeRepository.findById(username);
+        // キャッシュになければDBから取得する(キャッシュにあればDBに問い合わせない)
+        // 他のサーバーでの更新・削除は、キャッシュの有効期限(app.employee-cache.expire-after-write)内に反映される
+        Employee employee = employeeCache.get(username, code -> employeeRepository.findById(code).orElse(null));
 
-        if (employee.isEmpty()) {
+        if (employee == null) {
             throw new UsernameNotFoundException("Exception:Username Not Found");
         }
-        return new UserDetail(employee.get());
+        return new UserDetail(employee);
+    }
+
+    // ログイン成功時、保存済みのパスワードのハッシュが現在の強度より低い場合に呼ばれ、新しいハッシュで更新する
+    // (画面からの更新ではないため更新日時は変更しない)
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Employee employee = employeeRepository.findById(user.getUsername()).orElse(null);
+        if (employee == null) {
+            return user;
+        }
+
+        employee.setPassword(newPassword);
+        employeeRepository.save(employee);
+        employeeCache.invalidate(employee.getCode());
+        return new UserDetail(employee);
     }
-}
\ No newline at end of file
+}
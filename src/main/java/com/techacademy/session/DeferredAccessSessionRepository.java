@@ -0,0 +1,241 @@
+package com.techacademy.session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+
+// セッションの保存のうち、最終アクセス日時のみの更新をまとめて書き込むSessionRepository
+// ・ログイン・属性の変更など内容が変わった場合は、これまでどおりリクエストの終了時に保存する
+// ・画面の表示のみ(最終アクセス日時のみの変更)の場合は保存せず、一定間隔でまとめてUPDATEする
+// ・保存済みの有効期限が書き込み間隔より近い場合は、期限切れとして削除されないようすぐに保存する
+public class DeferredAccessSessionRepository
+        implements FindByIndexNameSessionRepository<DeferredAccessSessionRepository.TrackedSession> {
+
+    private final FindByIndexNameSessionRepository<Session> delegate;
+    private final JdbcOperations jdbcOperations;
+    private final String updateAccessQuery;
+    private final Duration writeInterval;
+
+    // 書き込み待ちの最終アクセス日時(セッションID → 最終アクセス日時・有効期限)
+    private final Map<String, PendingAccess> pendingAccesses = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService writeExecutor;
+
+    @SuppressWarnings("unchecked")
+    public DeferredAccessSessionRepository(FindByIndexNameSessionRepository<? extends Session> delegate,
+            JdbcOperations jdbcOperations, String tableName, Duration writeInterval) {
+        this.delegate = (FindByIndexNameSessionRepository<Session>) delegate;
+        this.jdbcOperations = jdbcOperations;
+        // 他のサーバーがより新しい日時を書き込んでいる場合は更新しない
+        this.updateAccessQuery = "UPDATE " + tableName + " SET LAST_ACCESS_TIME = ?, EXPIRY_TIME = ? "
+                + "WHERE SESSION_ID = ? AND LAST_ACCESS_TIME < ?";
+        this.writeInterval = writeInterval;
+        this.writeExecutor = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("session-access-writer-"));
+        this.writeExecutor.scheduleWithFixedDelay(this::flush, writeInterval.toMillis(), writeInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public TrackedSession createSession() {
+        TrackedSession session = new TrackedSession(delegate.createSession());
+        session.changed = true;
+        return session;
+    }
+
+    @Override
+    public void save(TrackedSession session) {
+        // 最終アクセス日時のみの変更は次回の書き込みまで保留する
+        // (元のセッションは最終アクセス日時の変更でも保存が必要な状態になるため、元のSessionRepositoryには渡さない)
+        if (!session.changed && !expiresSoon(session)) {
+            if (session.accessed) {
+                Instant lastAccessedTime = session.getLastAccessedTime();
+                pendingAccesses.merge(session.getId(),
+                        new PendingAccess(lastAccessedTime,
+                                expiryTime(lastAccessedTime, session.getMaxInactiveInterval())),
+                        (oldValue, newValue) -> newValue.lastAccessedTime.isAfter(oldValue.lastAccessedTime)
+                                ? newValue : oldValue);
+                session.accessed = false;
+            }
+            return;
+        }
+
+        pendingAccesses.remove(session.getId());
+        delegate.save(session.delegate);
+        session.changed = false;
+        session.accessed = false;
+        session.savedLastAccessedTime = session.getLastAccessedTime();
+    }
+
+    @Override
+    public TrackedSession findById(String id) {
+        Session session = delegate.findById(id);
+        return session == null ? null : new TrackedSession(session);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        pendingAccesses.remove(id);
+        delegate.deleteById(id);
+    }
+
+    @Override
+    public Map<String, TrackedSession> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        Map<String, TrackedSession> sessions = new LinkedHashMap<>();
+        delegate.findByIndexNameAndIndexValue(indexName, indexValue)
+                .forEach((id, session) -> sessions.put(id, new TrackedSession(session)));
+        return sessions;
+    }
+
+    // 保留中の最終アクセス日時をまとめて書き込む
+    public void flush() {
+        Map<String, PendingAccess> accesses = new LinkedHashMap<>();
+        for (String id : pendingAccesses.keySet()) {
+            PendingAccess access = pendingAccesses.remove(id);
+            if (access != null) {
+                accesses.put(id, access);
+            }
+        }
+        if (accesses.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>();
+        accesses.forEach((id, access) -> args.add(new Object[] { access.lastAccessedTime.toEpochMilli(),
+                access.expiryTime.toEpochMilli(), id, access.lastAccessedTime.toEpochMilli() }));
+        try {
+            jdbcOperations.batchUpdate(updateAccessQuery, args);
+        } catch (DataAccessException e) {
+            // 書き込めなかった分は次回に再度書き込む(その間に新しいアクセスがあった場合はそちらを優先する)
+            accesses.forEach(pendingAccesses::putIfAbsent);
+        }
+    }
+
+    // 書き込み待ちの件数
+    public int getPendingCount() {
+        return pendingAccesses.size();
+    }
+
+    // 定期的な書き込みを停止し、保留中の最終アクセス日時を書き込む
+    // (元のSessionRepositoryの終了処理は、Springが置き換え前のBeanに対して呼ぶ)
+    public void shutdown() {
+        writeExecutor.shutdownNow();
+        flush();
+    }
+
+    // 保存済みの有効期限までに次回の書き込みが間に合わない可能性がある場合はtrue
+    private boolean expiresSoon(TrackedSession session) {
+        Duration maxInactiveInterval = session.getMaxInactiveInterval();
+        if (maxInactiveInterval.isNegative()) {
+            return false;
+        }
+        return session.savedLastAccessedTime.plus(maxInactiveInterval).minus(writeInterval.multipliedBy(2))
+                .isBefore(Instant.now());
+    }
+
+    // 有効期限(有効期間が負の場合は無期限)
+    private static Instant expiryTime(Instant lastAccessedTime, Duration maxInactiveInterval) {
+        return maxInactiveInterval.isNegative() ? Instant.ofEpochMilli(Long.MAX_VALUE)
+                : lastAccessedTime.plus(maxInactiveInterval);
+    }
+
+    private record PendingAccess(Instant lastAccessedTime, Instant expiryTime) {
+    }
+
+    // 元のセッションへの変更を記録するセッション
+    public static class TrackedSession implements Session {
+
+        private final Session delegate;
+
+        // 最終アクセス日時以外の変更の有無・最終アクセス日時の変更の有無
+        private boolean changed;
+        private boolean accessed;
+
+        // DBに保存されている最終アクセス日時
+        private Instant savedLastAccessedTime;
+
+        TrackedSession(Session delegate) {
+            this.delegate = delegate;
+            this.savedLastAccessedTime = delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            changed = true;
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            changed = true;
+            delegate.setAttribute(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            changed = true;
+            delegate.removeAttribute(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            accessed = true;
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            changed = true;
+            delegate.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.techacademy.session;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+
+// セッションの保存先の設定
+// 保存先はクラスパスにあるSpring Sessionのモジュールで決まり(spring-session-jdbcの場合はDB)、spring.session.*で設定する
+@Configuration
+public class SessionConfiguration {
+
+    // Spring Bootが作成したDBのSessionRepositoryを、最終アクセス日時のみの更新をまとめて書き込むものに置き換える
+    // (書き込み間隔が0の場合は置き換えず、リクエストごとに書き込む)
+    // 終了時の処理は置き換え前のBeanに対して呼ばれるため、置き換えたSessionRepositoryの終了処理(保留分の書き込み)もここで行う
+    @Bean
+    public static DestructionAwareBeanPostProcessor deferredAccessSessionRepositoryPostProcessor(
+            ObjectProvider<DataSource> dataSource,
+            @Value("${spring.session.jdbc.table-name:" + JdbcIndexedSessionRepository.DEFAULT_TABLE_NAME
+                    + "}") String tableName,
+            @Value("${app.session.access-write-interval:60s}") Duration writeInterval) {
+        return new DestructionAwareBeanPostProcessor() {
+
+            private final Map<Object, DeferredAccessSessionRepository> repositories = new ConcurrentHashMap<>();
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JdbcIndexedSessionRepository sessionRepository && !writeInterval.isZero()) {
+                    DeferredAccessSessionRepository repository = new DeferredAccessSessionRepository(
+                            sessionRepository, new JdbcTemplate(dataSource.getObject()), tableName, writeInterval);
+                    repositories.put(bean, repository);
+                    return repository;
+                }
+                return bean;
+            }
+
+            @Override
+            public boolean requiresDestruction(Object bean) {
+                return bean instanceof JdbcIndexedSessionRepository;
+            }
+
+            @Override
+            public void postProcessBeforeDestruction(Object bean, String beanName) {
+                DeferredAccessSessionRepository repository = repositories.remove(bean);
+                if (repository != null) {
+                    repository.shutdown();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.techacademy.startup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// JVMの起動から最初のリクエストの応答までの時間を計測する(dailyreport.startup.first.request)
+// 起動処理に加えて、遅延初期化されたBeanの作成など最初のリクエストで行われる処理も含めた、実際に応答できるまでの時間
+// 監視用のリクエスト(/actuator)は対象外とする
+@Component
+public class FirstRequestTimer extends OncePerRequestFilter implements MeterBinder, Ordered {
+
+    private final AtomicBoolean recorded = new AtomicBoolean();
+    private volatile double firstRequestMillis = Double.NaN;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!recorded.get() && !request.getRequestURI().startsWith(request.getContextPath() + "/actuator")
+                    && recorded.compareAndSet(false, true)) {
+                firstRequestMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("dailyreport.startup.first.request", this, TimeUnit.MILLISECONDS,
+                timer -> timer.firstRequestMillis)
+                .description("Time from JVM start until the first request was answered").register(registry);
+    }
+
+    // Spring Securityより前で計測し、ログイン画面へのリダイレクトなども最初の応答として扱う
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    // 計測済みの場合はミリ秒、未計測の場合はNaN
+    public double getFirstRequestMillis() {
+        return firstRequestMillis;
+    }
+}
@@ -0,0 +1,28 @@
+package com.techacademy.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.SpringProperties;
+
+import com.techacademy.security.OffloadedPasswordEncoder;
+import com.techacademy.service.ReportSearchIndex;
+import com.techacademy.service.ReportSummaryService;
+
+@Configuration
+public class StartupConfiguration {
+
+    // 遅延初期化(spring.main.lazy-initialization=true)の対象外とするBean
+    // 検索インデックスの作成・集計の取り込み・BCryptの強度の計測は、最初のリクエストを待たせないよう起動時に行う
+    @Bean
+    public static LazyInitializationExcludeFilter startupBeansExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ReportSearchIndex.class, ReportSummaryService.class,
+                OffloadedPasswordEncoder.class);
+    }
+
+    // CDSアーカイブ作成のための試行起動(-Dspring.context.exit=onRefresh)かどうか
+    // 試行起動ではコンテキストの作成後すぐに終了するため、DBからの読み込みなど起動時の処理は不要
+    public static boolean isTrainingRun() {
+        return "onRefresh".equals(SpringProperties.getProperty("spring.context.exit"));
+    }
+}
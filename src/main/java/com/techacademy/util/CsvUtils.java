@@ -0,0 +1,98 @@
+package com.techacademy.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+// CSV形式の入出力用クラス(RFC 4180形式)
+public final class CsvUtils {
+
+    private CsvUtils() {
+    }
+
+    // 1行分の値をCSV形式で書き出す
+    // 文字列の値は、表計算ソフトで数式として実行されないようにしてから書き出す(数値・日付等はそのまま書き出す)
+    public static void writeRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            String text = value == null ? "" : value instanceof CharSequence ? neutralizeFormula(value.toString())
+                    : value.toString();
+            writer.write(escape(text));
+        }
+        writer.write("\r\n");
+    }
+
+    // =・+・-・@・タブ・CRで始まる値は数式として実行されるため、先頭に'を付けて文字列として扱わせる(CSVインジェクション対策)
+    public static String neutralizeFormula(String value) {
+        if (value.isEmpty() || "=+-@\t\r".indexOf(value.charAt(0)) < 0) {
+            return value;
+        }
+        return '\'' + value;
+    }
+
+    // カンマ・ダブルクォート・改行を含む値はダブルクォートで囲み、ダブルクォートは2つ重ねる
+    public static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // 1行分の値を読み込む(ファイルの終わりの場合はnull)
+    // ダブルクォートで囲まれた値はカンマ・改行を含むことができ、2つ重ねたダブルクォートは1つとして読み込む
+    // 囲みの終わりの判定で1文字先読みするため、mark/resetに対応したReader(BufferedReader等)を渡すこと
+    public static List<String> readRow(Reader reader) throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    // 囲みが閉じられないままファイルが終わった場合は、そこまでを値とする
+                    break;
+                } else if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        value.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                break;
+            } else {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,99 @@
+package com.techacademy.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jakarta.servlet.http.HttpSession;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+// 条件付きGET(ETag / Last-Modified)用クラス
+// 画面の内容は表示するデータの更新日時と閲覧者(ログインユーザー・権限・セッション)で決まるため、これらから強いETagを作成する
+public final class HttpCacheUtils {
+
+    // ハッシュ値の計算対象のテンプレート
+    private static final String TEMPLATES_DIRECTORY = "templates/";
+    private static final String TEMPLATES_PATTERN = "classpath*:" + TEMPLATES_DIRECTORY + "**/*.html";
+
+    // 画面のテンプレートの内容から作る値(デプロイでテンプレートが変わった場合に、以前に描画した画面を使わせない)
+    // 同じ版を動かす複数のサーバー・再起動の前後では同じ値になるため、サーバーをまたいでも304を返せる
+    private static final String TEMPLATES_VERSION = templatesVersion();
+
+    // ブラウザにのみ保存させ、表示のたびに再検証させる
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private HttpCacheUtils() {
+    }
+
+    // クライアントの保持している画面が最新の場合はtrue(304 Not Modifiedを返すため、呼び出し側は画面を描画しない)
+    // 最新でない場合はETag・Last-Modifiedを設定してfalseを返す
+    public static boolean checkNotModified(ServletWebRequest request, LocalDateTime... versions) {
+        // Spring Securityの既定(no-store)はアプリで指定した場合は付与されない
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+
+        StringBuilder source = new StringBuilder(TEMPLATES_VERSION);
+        LocalDateTime lastModified = null;
+        for (LocalDateTime version : versions) {
+            source.append('|').append(version);
+            if (version != null && (lastModified == null || version.isAfter(lastModified))) {
+                lastModified = version;
+            }
+        }
+
+        // 権限により表示するボタンが、セッション(CSRFトークン)により送信フォームの内容が変わる
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null) {
+            source.append('|').append(authentication.getName());
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                source.append('|').append(authority.getAuthority());
+            }
+        }
+        HttpSession session = request.getRequest().getSession(false);
+        source.append('|').append(session == null ? "" : session.getId());
+
+        String etag = "\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        long lastModifiedMillis = lastModified == null ? -1
+                : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return request.checkNotModified(etag, lastModifiedMillis);
+    }
+
+    // テンプレート(パス・内容)のハッシュ値
+    // 読み込み順に依存しないようパスの順に並べてから計算する
+    private static String templatesVersion() {
+        try {
+            Resource[] templates = new PathMatchingResourcePatternResolver(HttpCacheUtils.class.getClassLoader())
+                    .getResources(TEMPLATES_PATTERN);
+            Map<String, Resource> sorted = new TreeMap<>();
+            for (Resource template : templates) {
+                String url = template.getURL().toString();
+                sorted.put(url.substring(url.lastIndexOf(TEMPLATES_DIRECTORY)), template);
+            }
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            for (Map.Entry<String, Resource> entry : sorted.entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = entry.getValue().getInputStream()) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("テンプレートを読み込めません", e);
+        }
+    }
+}
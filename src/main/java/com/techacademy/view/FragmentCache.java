@@ -0,0 +1,64 @@
+package com.techacademy.view;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// 描画済みの共通部品(ヘッダー・サイドメニュー)のキャッシュ
+// 部品名・権限などをキーに描画結果のHTMLを保持する(メモリ上のみのため、再起動・デプロイで破棄される)
+@Component
+public class FragmentCache {
+
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+
+    // キャッシュを使用したことで省略できた描画時間の合計
+    private final LongAdder savedNanos = new LongAdder();
+
+    // テンプレートのキャッシュが無効の場合(開発時)は、テンプレートの変更をすぐに反映するため部品もキャッシュしない
+    public FragmentCache(@Value("${spring.thymeleaf.cache:true}") boolean templateCache,
+            @Value("${app.fragment-cache.maximum-size:1MB}") DataSize maximumSize) {
+        this.enabled = templateCache;
+        // 上限はHTMLの文字数で判定する(1文字2バイトとして換算)
+        this.cache = Caffeine.newBuilder().maximumWeight(maximumSize.toBytes() / 2)
+                .<String, Entry>weigher((key, entry) -> key.length() + entry.html.length()).recordStats().build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // キャッシュから取得(なければrendererで描画して登録する)
+    public String get(String key, Supplier<String> renderer) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            savedNanos.add(entry.renderNanos);
+            return entry.html;
+        }
+
+        long start = System.nanoTime();
+        String html = renderer.get();
+        cache.put(key, new Entry(html, System.nanoTime() - start));
+        return html;
+    }
+
+    // キャッシュを使用したことで省略できた描画時間の合計(秒)
+    public double getSavedSeconds() {
+        return savedNanos.sum() / 1_000_000_000.0;
+    }
+
+    // メトリクス連携用にキャッシュ本体を取得
+    public Cache<String, Entry> getNativeCache() {
+        return cache;
+    }
+
+    // 描画結果と描画にかかった時間
+    public record Entry(String html, long renderNanos) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.techacademy.view;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.processor.element.AbstractAttributeModelProcessor;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+import org.thymeleaf.standard.StandardDialect;
+import org.thymeleaf.standard.expression.FragmentSignature;
+import org.thymeleaf.standard.expression.FragmentSignatureUtils;
+import org.thymeleaf.standard.processor.StandardXmlNsTagProcessor;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.web.IWebExchange;
+
+// 共通部品の描画結果をキャッシュするための属性(dr:cache)
+// th:fragmentと同じ要素に、th:fragmentと同じ形式(部品名と引数)で指定する
+//   <nav th:fragment="copy" dr:cache="copy">
+// 部品名・引数の値・ログインユーザーの権限が同じであれば、2回目以降は描画せずキャッシュしたHTMLを使う
+// (フォームのCSRFトークンのみ、リクエストごとの値に置き換える)
+@Component
+public class FragmentCacheDialect extends AbstractProcessorDialect {
+
+    private static final String PREFIX = "dr";
+
+    private final FragmentCache fragmentCache;
+
+    @Autowired
+    public FragmentCacheDialect(FragmentCache fragmentCache) {
+        super("Fragment Cache", PREFIX, StandardDialect.PROCESSOR_PRECEDENCE);
+        this.fragmentCache = fragmentCache;
+    }
+
+    @Override
+    public Set<IProcessor> getProcessors(String dialectPrefix) {
+        // xmlns:drの宣言は出力しない
+        return Set.of(new CacheProcessor(dialectPrefix, fragmentCache),
+                new StandardXmlNsTagProcessor(TemplateMode.HTML, dialectPrefix));
+    }
+
+    static class CacheProcessor extends AbstractAttributeModelProcessor {
+
+        // キャッシュ登録用の描画中であること(描画中の部品ではキャッシュを参照しない)
+        private static final ThreadLocal<Boolean> RENDERING = new ThreadLocal<>();
+
+        // キャッシュしたHTML内のCSRFトークンの位置
+        private static final String CSRF_TOKEN_MARK = "\u0000csrf\u0000";
+
+        // th:fragmentなど他の属性より先に処理する
+        private static final int PRECEDENCE = 0;
+
+        private final FragmentCache fragmentCache;
+
+        CacheProcessor(String dialectPrefix, FragmentCache fragmentCache) {
+            super(TemplateMode.HTML, dialectPrefix, null, false, "cache", true, PRECEDENCE, true);
+            this.fragmentCache = fragmentCache;
+        }
+
+        @Override
+        protected void doProcess(ITemplateContext context, IModel model, AttributeName attributeName,
+                String attributeValue, IElementModelStructureHandler structureHandler) {
+            if (!fragmentCache.isEnabled() || Boolean.TRUE.equals(RENDERING.get())) {
+                return;
+            }
+
+            String template = context.getTemplateData().getTemplate();
+            FragmentSignature signature = FragmentSignatureUtils.parseFragmentSignature(context.getConfiguration(),
+                    attributeValue);
+            CsrfToken csrfToken = null;
+            String applicationPath = "";
+            if (context instanceof IWebContext webContext) {
+                csrfToken = (CsrfToken) webContext.getExchange().getAttributeValue(CsrfToken.class.getName());
+                applicationPath = webContext.getExchange().getRequest().getApplicationPath();
+            }
+
+            // キー: テンプレート・部品名・引数の値・権限・アプリケーションのパス・ロケール
+            StringBuilder key = new StringBuilder(template).append("::").append(signature.getFragmentName());
+            if (signature.hasParameters()) {
+                for (String parameterName : signature.getParameterNames()) {
+                    key.append('|').append(context.getVariable(parameterName));
+                }
+            }
+            key.append('|').append(authorities()).append('|').append(applicationPath).append('|')
+                    .append(context.getLocale());
+
+            String token = csrfToken == null ? null : csrfToken.getToken();
+            String html = fragmentCache.get(key.toString(), () -> {
+                String rendered = render(context, template, signature.getFragmentName());
+                return token == null ? rendered : rendered.replace(token, CSRF_TOKEN_MARK);
+            });
+
+            model.reset();
+            model.add(context.getModelFactory()
+                    .createText(token == null ? html : html.replace(CSRF_TOKEN_MARK, token)));
+        }
+
+        // 現在の変数(部品の引数・リクエストの情報を含む)で部品のみを描画する
+        private static String render(ITemplateContext context, String template, String fragmentName) {
+            Map<String, Object> variables = new HashMap<>();
+            for (String name : context.getVariableNames()) {
+                variables.put(name, context.getVariable(name));
+            }
+            TemplateSpec templateSpec = new TemplateSpec(template, Set.of(fragmentName), TemplateMode.HTML, null);
+            StringWriter writer = new StringWriter();
+
+            RENDERING.set(Boolean.TRUE);
+            try {
+                if (context instanceof IWebContext webContext) {
+                    // Webの場合は変数がリクエストの属性として登録されるため、描画後に元の属性に戻す
+                    IWebExchange exchange = webContext.getExchange();
+                    Map<String, Object> attributes = new HashMap<>(exchange.getAttributeMap());
+                    try {
+                        context.getConfiguration().getTemplateManager().parseAndProcess(templateSpec,
+                                new WebContext(exchange, context.getLocale(), variables), writer);
+                    } finally {
+                        for (String name : variables.keySet()) {
+                            if (attributes.containsKey(name)) {
+                                exchange.setAttributeValue(name, attributes.get(name));
+                            } else {
+                                exchange.removeAttribute(name);
+                            }
+                        }
+                    }
+                } else {
+                    context.getConfiguration().getTemplateManager().parseAndProcess(templateSpec,
+                            new Context(context.getLocale(), variables), writer);
+                }
+            } finally {
+                RENDERING.remove();
+            }
+            return writer.toString();
+        }
+
+        // ログインユーザーの権限(未ログインの場合は空)
+        private static String authorities() {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            Set<String> authorities = new TreeSet<>();
+            if (authentication != null && authentication.isAuthenticated()) {
+                for (GrantedAuthority authority : authentication.getAuthorities()) {
+                    authorities.add(authority.getAuthority());
+                }
+            }
+            return String.join(",", authorities);
+        }
+    }
+}
@@ -4,7 +4,13 @@ INSERT INTO daily_report_system.employees(code,name,role,password,delete_flg,cre
      VALUES ("2","田中　太郎","GENERAL","$2a$10$HPIjRCymeRZKEIq.71TDduiEotOlb8Ai6KQUHCs4lGNYlLhcKv4Wi",0,CURRENT_TIMESTAMP,CURRENT_TIMESTAMP);
 
 
-INSERT INTO daily_report_system.reports(report_date,title,content,employee_code,delete_flg,created_at,updated_at)
-     VALUES (CURRENT_TIMESTAMP,"煌木　太郎の記載、タイトル","煌木　太郎の記載、内容",1,0,CURRENT_TIMESTAMP,CURRENT_TIMESTAMP);
-INSERT INTO daily_report_system.reports(report_date,title,content,employee_code,delete_flg,created_at,updated_at)
-     VALUES (CURRENT_TIMESTAMP,"田中　太郎の記載、タイトル","田中　太郎の記載、内容",2,0,CURRENT_TIMESTAMP,CURRENT_TIMESTAMP);
+INSERT INTO daily_report_system.reports(id,report_date,title,employee_code,delete_flg,created_at,updated_at)
+     VALUES (1,CURRENT_TIMESTAMP,"煌木　太郎の記載、タイトル",1,0,CURRENT_TIMESTAMP,CURRENT_TIMESTAMP);
+INSERT INTO daily_report_system.reports(id,report_date,title,employee_code,delete_flg,created_at,updated_at)
+     VALUES (2,CURRENT_TIMESTAMP,"田中　太郎の記載、タイトル",2,0,CURRENT_TIMESTAMP,CURRENT_TIMESTAMP);
+INSERT INTO daily_report_system.report_contents(report_id,content)
+     VALUES (1,"煌木　太郎の記載、内容");
+INSERT INTO daily_report_system.report_contents(report_id,content)
+     VALUES (2,"田中　太郎の記載、内容");
+-- 日報IDの採番を初期データのIDより後ろから開始する
+UPDATE daily_report_system.reports_seq SET next_val = 101;
@@ -0,0 +1,13 @@
+-- 監査ログのテーブル(audit_logs)を作成する
+-- 監査ログを持たない版のDBを使い続ける場合に、アプリケーションを起動する前に1回だけ実行する
+--   mysql -u repuser -p < migrate-audit-logs.sql
+CREATE TABLE daily_report_system.audit_logs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    occurred_at DATETIME(6) NOT NULL,
+    actor_code VARCHAR(10),
+    action VARCHAR(10) NOT NULL,
+    target_type VARCHAR(10) NOT NULL,
+    target_id VARCHAR(10) NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_audit_logs_target (target_type, target_id, occurred_at)
+) ENGINE=InnoDB;
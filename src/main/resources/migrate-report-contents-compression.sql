@@ -0,0 +1,7 @@
+-- 日報の内容テーブル(report_contents.content)を圧縮した内容を保存できるバイナリ型に変更する
+-- 内容をテキスト型で持っていた版のDBを使い続ける場合に、アプリケーションを停止して1回だけ実行する
+-- (migrate-report-contents.sqlの以前の版で内容テーブルを作成した場合が対象。現在の版はバイナリ型で作成するため不要)
+-- 圧縮を有効にする(app.report-content.compression.enabled=true)前に実行すること(テキスト型の列には圧縮した内容を保存できない)
+--   mysql -u repuser -p < migrate-report-contents-compression.sql
+-- 既存の行はUTF-8のまま残り、そのまま読み込める(更新した日報から順に圧縮して保存される)
+ALTER TABLE daily_report_system.report_contents MODIFY content LONGBLOB NOT NULL;
@@ -0,0 +1,19 @@
+-- 日報の内容を日報テーブル(reports.content)から内容テーブル(report_contents)へ移す
+-- 内容を日報テーブルに持っていた版のDBを使い続ける場合に、アプリケーションを停止して1回だけ実行する
+--   mysql -u repuser -p < migrate-report-contents.sql
+-- mysqlコマンドはエラーが発生した時点で中断するため、内容の移行に失敗した場合は日報テーブルの列は削除されない
+-- 内容は圧縮して保存する場合があるため、列はバイナリ型(LONGBLOB)で作成する(移行した内容はUTF-8のまま読み込める)
+CREATE TABLE daily_report_system.report_contents (
+    report_id INT NOT NULL,
+    content LONGBLOB NOT NULL,
+    PRIMARY KEY (report_id)
+) ENGINE=InnoDB;
+
+-- 論理削除済みの日報も、将来の参照・復元のため移行する
+INSERT INTO daily_report_system.report_contents(report_id,content)
+     SELECT id,content FROM daily_report_system.reports;
+
+ALTER TABLE daily_report_system.reports DROP COLUMN content;
+
+-- 削除した列の領域を解放し、日報テーブルを作り直す
+OPTIMIZE TABLE daily_report_system.reports;
@@ -0,0 +1,17 @@
+-- 日報の下書きのテーブル(report_drafts)の主キーを(社員番号, 日付)から(社員番号, 日報ID)に変更する
+-- migrate-report-drafts.sqlの以前の版でテーブルを作成した場合に、アプリケーションを停止して1回だけ実行する
+--   mysql -u repuser -p < migrate-report-drafts-key.sql
+-- 同じ従業員・画面の下書きが複数ある場合は、最新の1件のみ残す
+DELETE d FROM daily_report_system.report_drafts d
+  JOIN daily_report_system.report_drafts n
+    ON n.employee_code = d.employee_code AND COALESCE(n.report_id, 0) = COALESCE(d.report_id, 0)
+   AND n.updated_at > d.updated_at;
+
+-- 新規登録画面の下書きの日報IDは0とする
+UPDATE daily_report_system.report_drafts SET report_id = 0 WHERE report_id IS NULL;
+
+ALTER TABLE daily_report_system.report_drafts
+    MODIFY report_id INT NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (employee_code, report_id),
+    ADD INDEX idx_report_drafts_report_id (report_id);
@@ -0,0 +1,14 @@
+-- 日報の下書きのテーブル(report_drafts)を作成する
+-- 下書きを持たない版のDBを使い続ける場合に、アプリケーションを起動する前に1回だけ実行する
+--   mysql -u repuser -p < migrate-report-drafts.sql
+-- 下書きは従業員・画面ごとに1件(report_idは更新中の日報のID、新規登録画面の下書きは0)
+CREATE TABLE daily_report_system.report_drafts (
+    employee_code VARCHAR(10) NOT NULL,
+    report_id INT NOT NULL,
+    report_date DATE NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    content LONGTEXT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (employee_code, report_id),
+    INDEX idx_report_drafts_report_id (report_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,12 @@
+-- 従業員別・月別の日報件数の集計テーブル(report_summaries)を作成する
+-- 集計テーブルを持たない版のDBを使い続ける場合に、アプリケーションを起動する前に1回だけ実行する
+--   mysql -u repuser -p < migrate-report-summaries.sql
+-- 集計は、テーブルが空の場合にアプリケーションの起動時に日報テーブルから作成される
+CREATE TABLE daily_report_system.report_summaries (
+    employee_code VARCHAR(10) NOT NULL,
+    report_month DATE NOT NULL,
+    report_count INT NOT NULL,
+    last_report_date DATE,
+    PRIMARY KEY (employee_code, report_month),
+    INDEX idx_report_summaries_month (report_month)
+) ENGINE=InnoDB;
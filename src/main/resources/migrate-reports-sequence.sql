@@ -0,0 +1,13 @@
+-- 日報IDの採番をAUTO_INCREMENTからシーケンス用のテーブル(reports_seq)に切り替える
+-- AUTO_INCREMENTで採番していた版のDBを使い続ける場合に、アプリケーションを停止して1回だけ実行する
+--   mysql -u repuser -p < migrate-reports-sequence.sql
+CREATE TABLE daily_report_system.reports_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+-- アプリケーションはnext_valまでの50件(@SequenceGeneratorのallocationSize)のIDをまとめて使うため、
+-- 登録済みの最大のID(論理削除済みを含む)+50から開始し、既存のIDと重ならないようにする
+INSERT INTO daily_report_system.reports_seq(next_val)
+     SELECT COALESCE(MAX(id), 0) + 50 FROM daily_report_system.reports;
+
+ALTER TABLE daily_report_system.reports MODIFY id INT NOT NULL;
@@ -0,0 +1,14 @@
+-- 同一従業員・同一日付の日報を1件に制限する一意制約と、同一日付チェック・一覧のページング用のインデックスを追加する
+-- 一意制約を持たない版のDBを使い続ける場合に、アプリケーションを停止して1回だけ実行する
+--   mysql -u repuser -p < migrate-reports-unique-date.sql
+-- 同じ従業員・日付の未削除の日報が複数ある場合は一意制約を追加できずに中断するため、
+-- 事前に次のSQLで重複を確認し、論理削除等で解消しておくこと
+--   SELECT employee_code, report_date, COUNT(*) FROM daily_report_system.reports
+--    WHERE delete_flg = 0 GROUP BY employee_code, report_date HAVING COUNT(*) > 1;
+
+-- 有効フラグ(未削除は1、論理削除済みはNULL)は一意制約で論理削除済みの日報を対象外にするための列
+ALTER TABLE daily_report_system.reports
+    ADD COLUMN active_flg TINYINT GENERATED ALWAYS AS (CASE WHEN delete_flg = 0 THEN 1 END),
+    ADD INDEX idx_reports_employee_date (employee_code, report_date, delete_flg),
+    ADD INDEX idx_reports_date_id (report_date, id),
+    ADD CONSTRAINT uk_reports_employee_date_active UNIQUE (employee_code, report_date, active_flg);
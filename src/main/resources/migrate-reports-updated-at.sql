@@ -0,0 +1,6 @@
+-- 検索用インデックスの差分反映(更新日時以降の日報の取得)用のインデックスを追加する
+-- 検索機能を持たない版のDBを使い続ける場合に、アプリケーションを起動する前に1回だけ実行する
+-- (複数のサーバーで動かす場合は、各サーバーが一定間隔でこのインデックスを使って他のサーバーでの更新を読み込む)
+--   mysql -u repuser -p < migrate-reports-updated-at.sql
+ALTER TABLE daily_report_system.reports
+    ADD INDEX idx_reports_updated_at (updated_at);
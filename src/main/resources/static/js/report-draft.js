@@ -0,0 +1,54 @@
+// 日報の登録・更新画面の下書きの自動保存
+// 入力があった場合のみ、一定間隔でフォームの内容を送信する(画面を離れる・閉じる場合はすぐに送信する)
+// 送信の頻度によらず、サーバーでは従業員・日付ごとに最新の下書きのみをまとめてDBに書き込む
+(function () {
+    'use strict';
+
+    // 送信の間隔(ミリ秒)
+    var INTERVAL = 5000;
+
+    var form = document.getElementById('report-form');
+    if (!form || !form.dataset.draftUrl) {
+        return;
+    }
+    var url = form.dataset.draftUrl;
+    var changed = false;
+    var submitted = false;
+
+    function send(leaving) {
+        // 登録・更新ボタンで送信した後は保存しない(登録・更新に成功した時点で下書きは削除される)
+        if (!changed || submitted) {
+            return;
+        }
+        changed = false;
+        // CSRFトークンもフォームの項目として送信される
+        var data = new FormData(form);
+        if (leaving && navigator.sendBeacon) {
+            navigator.sendBeacon(url, data);
+            return;
+        }
+        fetch(url, { method: 'POST', body: data, credentials: 'same-origin' }).then(function (response) {
+            // 通信・サーバーのエラーの場合は次回に再度送信する(日付が未入力などの400は入力されるまで送信しない)
+            if (!response.ok && response.status !== 400) {
+                changed = true;
+            }
+        }).catch(function () {
+            changed = true;
+        });
+    }
+
+    form.addEventListener('input', function () {
+        changed = true;
+    });
+    form.addEventListener('submit', function () {
+        submitted = true;
+    });
+    document.addEventListener('visibilitychange', function () {
+        if (document.visibilityState === 'hidden') {
+            send(true);
+        }
+    });
+    setInterval(function () {
+        send(false);
+    }, INTERVAL);
+})();
@@ -0,0 +1,154 @@
+package com.techacademy.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.techacademy.entity.AuditLog;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// 組み込みDB(H2)の監査ログテーブルに、コミット後の操作のみがまとめて書き込まれることを確認する
+class AuditLogWriterTest {
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:audit;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE audit_logs (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "occurred_at TIMESTAMP NOT NULL, actor_code VARCHAR(10), action VARCHAR(10) NOT NULL, "
+                + "target_type VARCHAR(10) NOT NULL, target_id VARCHAR(10) NOT NULL)");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.execute("DROP TABLE audit_logs");
+        dataSource.close();
+    }
+
+    // テストケース1 コミットした操作のみ書き込まれ、終了時に残りが書き込まれる
+    @Test
+    void testPublishAfterCommit() throws Exception {
+        // 書き込み間隔を長くし、終了時にまとめて書き込まれるようにする
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, 16, 100, Duration.ofMinutes(1),
+                AuditLogWriter.Overflow.BLOCK, Duration.ofSeconds(5), 60);
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, 1);
+            writer.publishAfterCommit(AuditLog.Action.UPDATE, AuditLog.TargetType.EMPLOYEE, "2");
+            // コミット前はバッファに追加されない
+            assertEquals(writer.getPendingCount(), 0);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.publishAfterCommit(AuditLog.Action.DELETE, AuditLog.TargetType.REPORT, 3);
+            status.setRollbackOnly();
+        });
+        assertEquals(writer.getPendingCount(), 2);
+        assertEquals(count(), 0);
+
+        writer.destroy();
+        assertEquals(jdbcTemplate.queryForList("SELECT CONCAT(action, ':', target_type, ':', target_id) "
+                + "FROM audit_logs ORDER BY id", String.class), List.of("CREATE:REPORT:1", "UPDATE:EMPLOYEE:2"));
+        assertEquals(writer.getWrittenCount(), 2L);
+    }
+
+    // テストケース2 batch-size件たまった場合は間隔を待たずに書き込まれる
+    @Test
+    void testBatch() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, 64, 10, Duration.ofMinutes(1),
+                AuditLogWriter.Overflow.BLOCK, Duration.ofSeconds(5), 60);
+        for (int i = 0; i < 25; i++) {
+            writer.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, i);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getWrittenCount() < 20 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // batch-size件ずつ書き込まれる(残りの5件は書き込み中に追加された場合のみ続けて書き込まれる)
+        assertTrue(count() >= 20);
+
+        writer.destroy();
+        assertEquals(count(), 25);
+    }
+
+    // テストケース3 DROPの場合、バッファに空きがない分は破棄して件数を数える
+    @Test
+    void testDrop() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, 4, 100, Duration.ofMinutes(1),
+                AuditLogWriter.Overflow.DROP, Duration.ofSeconds(5), 60);
+        for (int i = 0; i < 6; i++) {
+            writer.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, i);
+        }
+        assertEquals(writer.getPendingCount(), 4);
+        assertEquals(writer.getDroppedCount(), 2L);
+
+        writer.destroy();
+        assertEquals(count(), 4);
+    }
+
+    // テストケース4 書き込みに失敗した回数を数え、max-attempts回続けて失敗した分は破棄する
+    @Test
+    void testWriteFailure() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, 16, 100, Duration.ofMillis(10),
+                AuditLogWriter.Overflow.BLOCK, Duration.ofSeconds(5), 3);
+        // テーブルがない状態にして書き込みを失敗させる
+        jdbcTemplate.execute("ALTER TABLE audit_logs RENAME TO audit_logs_backup");
+        for (int i = 0; i < 3; i++) {
+            writer.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, i);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getDroppedCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(writer.getDroppedCount(), 3L);
+        assertTrue(writer.getFailedCount() >= 3);
+
+        // 復旧後は書き込める
+        jdbcTemplate.execute("ALTER TABLE audit_logs_backup RENAME TO audit_logs");
+        writer.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, 4);
+        writer.destroy();
+        assertEquals(count(), 1);
+        assertEquals(writer.getWrittenCount(), 1L);
+    }
+
+    // テストケース5 BLOCKでもblock-timeoutを過ぎても空きができない場合は、破棄して件数を数える
+    @Test
+    void testBlockTimeout() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, 2, 2, Duration.ofMinutes(1),
+                AuditLogWriter.Overflow.BLOCK, Duration.ofMillis(500), 100);
+        // 書き込みを失敗させ、書き込み中の2件とバッファの2件で埋める
+        jdbcTemplate.execute("ALTER TABLE audit_logs RENAME TO audit_logs_backup");
+        for (int i = 0; i < 4; i++) {
+            writer.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, i);
+        }
+        assertEquals(writer.getDroppedCount(), 0L);
+
+        // 空きができないため、上限の時間まで待ってから破棄される
+        long start = System.nanoTime();
+        writer.publishAfterCommit(AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, 5);
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(500).toNanos());
+        assertEquals(writer.getDroppedCount(), 1L);
+
+        jdbcTemplate.execute("ALTER TABLE audit_logs_backup RENAME TO audit_logs");
+        writer.destroy();
+        assertEquals(count(), 4);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs", Integer.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.techacademy.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.techacademy.entity.AuditLog;
+
+class AuditRingBufferTest {
+
+    // テストケース1 容量1を指定した場合も、取り出し前の要素が上書きされず、空きがない場合は追加できない
+    @Test
+    void testMinimumCapacity() {
+        AuditRingBuffer buffer = new AuditRingBuffer(1);
+        assertEquals(buffer.capacity(), 2);
+
+        assertTrue(buffer.offer(event("1")));
+        assertTrue(buffer.offer(event("2")));
+        assertFalse(buffer.offer(event("3")));
+        assertEquals(buffer.size(), 2);
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(buffer.drain(event -> drained.add(event.targetId()), 10), 2);
+        assertEquals(drained, List.of("1", "2"));
+
+        // 取り出した後は次の周回で追加できる
+        assertTrue(buffer.offer(event("4")));
+        drained.clear();
+        buffer.drain(event -> drained.add(event.targetId()), 10);
+        assertEquals(drained, List.of("4"));
+    }
+
+    private static AuditEvent event(String targetId) {
+        return new AuditEvent(LocalDateTime.now(), "1", AuditLog.Action.CREATE, AuditLog.TargetType.REPORT, targetId);
+    }
+}
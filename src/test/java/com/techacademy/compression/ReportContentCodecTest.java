@@ -0,0 +1,53 @@
+package com.techacademy.compression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class ReportContentCodecTest {
+
+    private static final String LONG_CONTENT = "本日は株式会社様との打ち合わせを行いました。見積書の作成を進めています。"
+            + "午後は社内会議に参加し、進捗状況を共有しました。明日はお客様に連絡し、提案書を提出する予定です。"
+            + "引き続き対応します。以上です。よろしくお願いいたします。";
+
+    private final ReportContentCodec codec = new ReportContentCodec(true, 256);
+
+    // テストケース1 一定以上の長さの内容は圧縮して保存し、元の内容に戻せる
+    @Test
+    void testCompressed() {
+        byte[] stored = codec.encode(LONG_CONTENT);
+        assertEquals(stored[0], ReportContentCodec.COMPRESSED_MARKER);
+        assertTrue(stored.length < LONG_CONTENT.getBytes(StandardCharsets.UTF_8).length / 2);
+        assertEquals(codec.decode(stored), LONG_CONTENT);
+    }
+
+    // テストケース2 短い内容・圧縮が無効の場合はUTF-8のまま保存する
+    @Test
+    void testPlain() {
+        assertEquals(new String(codec.encode("特になし。"), StandardCharsets.UTF_8), "特になし。");
+        ReportContentCodec disabled = new ReportContentCodec(false, 256);
+        assertEquals(new String(disabled.encode(LONG_CONTENT), StandardCharsets.UTF_8), LONG_CONTENT);
+        // 圧縮を無効にしても、圧縮済みの内容は読み込める
+        assertEquals(disabled.decode(codec.encode(LONG_CONTENT)), LONG_CONTENT);
+    }
+
+    // テストケース3 圧縮を導入する前に保存した内容(UTF-8)をそのまま読み込める
+    @Test
+    void testLegacy() {
+        assertEquals(codec.decode(LONG_CONTENT.getBytes(StandardCharsets.UTF_8)), LONG_CONTENT);
+        assertEquals(codec.decode(new byte[0]), "");
+    }
+
+    // テストケース4 min-bytesに小さい値を指定しても、短い内容・空の内容を保存できる
+    @Test
+    void testSmallMinBytes() {
+        ReportContentCodec small = new ReportContentCodec(true, 0);
+        assertEquals(small.decode(small.encode("")), "");
+        assertEquals(small.decode(small.encode("a")), "a");
+        assertEquals(small.decode(small.encode("ab")), "ab");
+        assertEquals(small.decode(small.encode(LONG_CONTENT)), LONG_CONTENT);
+    }
+}
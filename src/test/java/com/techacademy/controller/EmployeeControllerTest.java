@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -21,6 +22,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -101,6 +104,24 @@ class EmployeeControllerTest {
         assertEquals(employee.getRole(), Role.ADMIN);
     }
 
+    // テストケース2 ブラウザの画面が最新であれば304を返す
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void testDetailNotModified() throws Exception {
+        MvcResult result = mockMvc.perform(get("/employees/1/")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private")) // キャッシュ指定の確認
+                .andReturn(); // 内容の取得
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        // ETagはセッションごとに異なるため、以降のリクエストも同じセッションで送信する
+        MockHttpSession session = (MockHttpSession) result.getRequest().getSession();
+
+        result = mockMvc.perform(get("/employees/1/").session(session).header(HttpHeaders.IF_NONE_MATCH, etag)) // URLにアクセス
+                .andExpect(status().isNotModified()) // ステータスを確認
+                .andReturn(); // 内容の取得
+        assertEquals(result.getModelAndView(), null);
+    }
+
     // 従業員新規登録画面
     @Test
     @WithMockUser(authorities = "ADMIN")
@@ -0,0 +1,592 @@
+package com.techacademy.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.techacademy.dto.ReportImportResult;
+import com.techacademy.dto.ReportListRow;
+import com.techacademy.dto.ReportPage;
+import com.techacademy.dto.ReportSearchPage;
+import com.techacademy.dto.ReportSummaryTable;
+import com.techacademy.entity.Report;
+import com.techacademy.service.ReportDraftService;
+import com.techacademy.service.ReportSearchIndex;
+import com.techacademy.service.ReportService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+class ReportControllerTest {
+
+    private MockMvc mockMvc;
+
+    private final WebApplicationContext webApplicationContext;
+
+    ReportControllerTest(WebApplicationContext context) {
+        this.webApplicationContext = context;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        // Spring Securityを有効にする
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+    }
+
+    // 日報一覧画面
+    // テストケース1 管理者は全従業員の日報を取得
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testListAdmin() throws Exception {
+        // HTTPリクエストに対するレスポンスの検証
+        MvcResult result = mockMvc.perform(get("/reports")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(model().attributeExists("reportList")) // Modelの内容を確認
+                .andExpect(model().hasNoErrors()) // Modelのエラー有無の確認
+                .andExpect(view().name("reports/list")) // viewの確認
+                .andReturn(); // 内容の取得
+
+        @SuppressWarnings("unchecked")
+        List<ReportListRow> reportList = (List<ReportListRow>) result.getModelAndView().getModel().get("reportList");
+
+        // 従業員名が日報と一緒に取得できていること
+        ReportListRow reportCode1 = reportList.stream().filter(r -> "1".equals(r.employeeCode())).findFirst().get();
+        assertEquals(reportCode1.employeeName(), "煌木　太郎");
+        assertEquals(reportCode1.title(), "煌木　太郎の記載、タイトル");
+
+        ReportListRow reportCode2 = reportList.stream().filter(r -> "2".equals(r.employeeCode())).findFirst().get();
+        assertEquals(reportCode2.employeeName(), "田中　太郎");
+        assertEquals(reportCode2.title(), "田中　太郎の記載、タイトル");
+    }
+
+    // テストケース2 一般ユーザーは自分の日報のみ取得
+    @Test
+    @WithMockUser(username = "2", authorities = "GENERAL")
+    void testListGeneral() throws Exception {
+        // HTTPリクエストに対するレスポンスの検証
+        MvcResult result = mockMvc.perform(get("/reports")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(view().name("reports/list")) // viewの確認
+                .andReturn(); // 内容の取得
+
+        @SuppressWarnings("unchecked")
+        List<ReportListRow> reportList = (List<ReportListRow>) result.getModelAndView().getModel().get("reportList");
+
+        assertEquals(reportList.stream().allMatch(r -> "2".equals(r.employeeCode())), true);
+        assertEquals(reportList.get(0).employeeName(), "田中　太郎");
+    }
+
+    // テストケース3 ページング(1件ずつ表示し、次ページで残りを取得)
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testListPaging() throws Exception {
+        // 1ページ目
+        MvcResult result = mockMvc.perform(get("/reports").param("size", "1")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(view().name("reports/list")) // viewの確認
+                .andReturn(); // 内容の取得
+
+        ReportPage firstPage = (ReportPage) result.getModelAndView().getModel().get("page");
+        assertEquals(firstPage.rows().size(), 1);
+        assertEquals(firstPage.hasNext(), true);
+        assertEquals(firstPage.hasPrevious(), false);
+
+        // 2ページ目(1ページ目の末尾行をカーソルに指定)
+        ReportListRow last = firstPage.getLast();
+        result = mockMvc.perform(get("/reports").param("size", "1")
+                .param("afterDate", last.reportDate().toString()).param("afterId", last.id().toString()))
+                .andExpect(status().isOk()) // ステータスを確認
+                .andReturn(); // 内容の取得
+
+        ReportPage secondPage = (ReportPage) result.getModelAndView().getModel().get("page");
+        assertEquals(secondPage.rows().size(), 1);
+        assertEquals(secondPage.hasPrevious(), true);
+        assertEquals(secondPage.getFirst().id().equals(last.id()), false);
+    }
+
+    // 日報新規登録処理
+    // テストケース1 正常終了
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    @Transactional
+    void testAddSuccess() throws Exception {
+
+        Report report = new Report();
+        report.setReportDate(LocalDate.of(2000, 1, 1));
+        report.setTitle("テストタイトル");
+        report.setContent("テスト内容");
+        report.setEmployeeCode("1");
+
+        // HTTPリクエストに対するレスポンスの検証
+        mockMvc.perform((post("/reports/add")).flashAttr("report", report).with(csrf()))
+                .andExpect(redirectedUrl("/reports"));
+    }
+
+    // テストケース2 同一日付の日報が既に存在(一意制約違反)
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testAddErrorDuplicateDate() throws Exception {
+
+        Report report = new Report();
+        report.setReportDate(LocalDate.now());
+        report.setTitle("テストタイトル");
+        report.setContent("テスト内容");
+        report.setEmployeeCode("1");
+
+        // HTTPリクエストに対するレスポンスの検証
+        mockMvc.perform((post("/reports/add")).flashAttr("report", report).with(csrf()))
+                .andExpect(model().attributeExists("reportDateError")) // エラーメッセージの確認
+                .andExpect(view().name("reports/new"));
+    }
+
+    // テストケース3 処理結果(エラー種別)ごとに処理時間が計測されること
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testAddMetrics() throws Exception {
+
+        Report report = new Report();
+        report.setReportDate(LocalDate.now());
+        report.setTitle("テストタイトル");
+        report.setContent("テスト内容");
+        report.setEmployeeCode("1");
+
+        mockMvc.perform((post("/reports/add")).flashAttr("report", report).with(csrf()))
+                .andExpect(view().name("reports/new"));
+
+        MeterRegistry meterRegistry = webApplicationContext.getBean(MeterRegistry.class);
+        Timer timer = meterRegistry.find("dailyreport.controller").tag("class", "ReportController")
+                .tag("method", "add").tag("outcome", "DATECHECK_ERROR").timer();
+        assertEquals(timer != null && timer.count() > 0, true);
+    }
+
+    // 日報の下書きの自動保存
+    // テストケース1 保存した下書きが登録画面で復元され、登録に成功すると削除される
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    @Transactional
+    void testDraft() throws Exception {
+        mockMvc.perform(post("/reports/draft").param("reportDate", "2000-02-01").param("title", "下書き")
+                .param("content", "入力途中").with(csrf())).andExpect(status().isNoContent());
+        // 書き込み前でも最新の下書きが復元される
+        mockMvc.perform(post("/reports/draft").param("reportDate", "2000-02-01").param("title", "下書きタイトル")
+                .param("content", "入力途中の内容").with(csrf())).andExpect(status().isNoContent());
+
+        MvcResult result = mockMvc.perform(get("/reports/add")).andExpect(status().isOk())
+                .andExpect(model().attributeExists("draftRestored")).andReturn();
+        Report restored = (Report) result.getModelAndView().getModel().get("report");
+        assertEquals(restored.getReportDate(), LocalDate.of(2000, 2, 1));
+        assertEquals(restored.getTitle(), "下書きタイトル");
+        assertEquals(restored.getContent(), "入力途中の内容");
+
+        // 登録は通常の入力チェック・保存処理で行う
+        mockMvc.perform(post("/reports/add").flashAttr("report", restored).with(csrf()))
+                .andExpect(redirectedUrl("/reports"));
+        mockMvc.perform(get("/reports/add")).andExpect(model().attributeDoesNotExist("draftRestored"));
+    }
+
+    // テストケース2 日付が未入力の場合は保存しない
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testDraftWithoutDate() throws Exception {
+        mockMvc.perform(post("/reports/draft").param("reportDate", "").param("title", "下書き").with(csrf()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/reports/add")).andExpect(model().attributeDoesNotExist("draftRestored"));
+    }
+
+    // テストケース3 画面を表示した後に日報が更新された場合、その画面の下書きは書き込まない
+    // (更新後に届いた自動保存・他のサーバーで書き込み待ちだった下書きで、削除した下書きが復活しない)
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    @Transactional
+    void testDraftAfterUpdate() throws Exception {
+        ReportDraftService reportDraftService = webApplicationContext.getBean(ReportDraftService.class);
+        Report report = webApplicationContext.getBean(ReportService.class).findWithContent(1);
+
+        // 日報の更新前に表示した画面の下書き
+        mockMvc.perform(post("/reports/draft").param("since", report.getUpdatedAt().minusSeconds(1).toString())
+                .param("id", "1").param("reportDate", report.getReportDate().toString()).param("title", "古い下書き")
+                .param("content", "入力途中").with(csrf())).andExpect(status().isNoContent());
+        reportDraftService.flush();
+        assertEquals(reportDraftService.findLatest("1", 1), null);
+
+        // 日報の更新後に表示した画面の下書きは書き込まれる
+        mockMvc.perform(post("/reports/draft").param("since", LocalDateTime.now().toString()).param("id", "1")
+                .param("reportDate", report.getReportDate().toString()).param("title", "新しい下書き")
+                .param("content", "入力途中").with(csrf())).andExpect(status().isNoContent());
+        reportDraftService.flush();
+        assertEquals(reportDraftService.findLatest("1", 1).getTitle(), "新しい下書き");
+    }
+
+    // テストケース4 新規登録・更新画面の下書きは同じ日付でも別に保存され、日付を変更しても1件のまま
+    // 日報を削除した場合は、その日報の下書きも削除される
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    @Transactional
+    void testDraftPerScreen() throws Exception {
+        ReportDraftService reportDraftService = webApplicationContext.getBean(ReportDraftService.class);
+        JdbcTemplate jdbcTemplate = webApplicationContext.getBean(JdbcTemplate.class);
+        Report report = webApplicationContext.getBean(ReportService.class).findWithContent(1);
+        String since = LocalDateTime.now().toString();
+
+        mockMvc.perform(post("/reports/draft").param("since", since).param("reportDate", "2000-03-01")
+                .param("title", "新規の下書き").param("content", "入力途中").with(csrf()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/reports/draft").param("since", since).param("id", "1").param("reportDate", "2000-03-01")
+                .param("title", "更新の下書き").param("content", "入力途中").with(csrf()))
+                .andExpect(status().isNoContent());
+        reportDraftService.flush();
+        // 更新画面で日付を変更する
+        mockMvc.perform(post("/reports/draft").param("since", since).param("id", "1").param("reportDate", "2000-03-02")
+                .param("title", "更新の下書き").param("content", "入力途中").with(csrf()))
+                .andExpect(status().isNoContent());
+        reportDraftService.flush();
+
+        assertEquals(reportDraftService.findLatest("1", null).getTitle(), "新規の下書き");
+        assertEquals(reportDraftService.findLatest("1", 1).getReportDate(), LocalDate.of(2000, 3, 2));
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM report_drafts WHERE employee_code = '1'",
+                Integer.class), 2);
+
+        mockMvc.perform(post("/reports/" + report.getId() + "/delete").with(csrf()))
+                .andExpect(redirectedUrl("/reports"));
+        assertEquals(reportDraftService.findLatest("1", 1), null);
+        assertEquals(reportDraftService.findLatest("1", null).getTitle(), "新規の下書き");
+    }
+
+    // 日報検索画面
+    // テストケース1 一般ユーザーは自分の日報のみ検索される
+    @Test
+    @WithMockUser(username = "2", authorities = "GENERAL")
+    void testSearchGeneral() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reports/search").param("q", "記載 タイトル")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(view().name("reports/search")) // viewの確認
+                .andReturn(); // 内容の取得
+
+        ReportSearchPage page = (ReportSearchPage) result.getModelAndView().getModel().get("result");
+        assertEquals(page.rows().isEmpty(), false);
+        assertEquals(page.rows().stream().allMatch(r -> "2".equals(r.employeeCode())), true);
+        assertEquals(page.rows().get(0).employeeName(), "田中　太郎");
+    }
+
+    // テストケース2 登録・削除した日報がインデックスに反映される(全角・半角の違いは区別しない)
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testSearchIndexUpdate() throws Exception {
+        ReportSearchIndex index = webApplicationContext.getBean(ReportSearchIndex.class);
+        Report report = new Report();
+        report.setId(Integer.MAX_VALUE);
+        report.setTitle("検索テスト");
+        report.setContent("ＡＢＣ社との打ち合わせ");
+        report.setEmployeeCode("1");
+        report.setUpdatedAt(LocalDateTime.now());
+
+        // トランザクション外のためすぐに反映される
+        index.updateAfterCommit(report);
+        assertEquals(index.search("abc社", null, 0, 10).ids(), List.of(Integer.MAX_VALUE));
+        assertEquals(index.search("打ち合わせ 検索", null, 0, 10).total(), 1);
+        assertEquals(index.search("打ち合わせ 存在しない", null, 0, 10).total(), 0);
+        // 1文字でも検索できる
+        assertEquals(index.search("社", null, 0, 10).ids().contains(Integer.MAX_VALUE), true);
+
+        index.removeAfterCommit(Integer.MAX_VALUE, LocalDateTime.now());
+        assertEquals(index.search("abc社", null, 0, 10).total(), 0);
+    }
+
+    // テストケース3 検索結果の件数を超えるページ番号(開始位置がintの範囲を超える場合も)は空のページとなる
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testSearchPageOverflow() throws Exception {
+        MvcResult result = mockMvc
+                .perform(get("/reports/search").param("q", "記載").param("page", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(view().name("reports/search")) // viewの確認
+                .andReturn(); // 内容の取得
+
+        ReportSearchPage page = (ReportSearchPage) result.getModelAndView().getModel().get("result");
+        assertEquals(page.rows().isEmpty(), true);
+        assertEquals(page.total() > 0, true);
+        assertEquals(page.getHasNext(), false);
+    }
+
+    // 日報詳細画面
+    // テストケース1 ブラウザの画面が最新であれば304を返し、日報の更新・閲覧者の違いは200で再描画する
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    @Transactional
+    void testDetailNotModified() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reports/1")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private")) // キャッシュ指定の確認
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED)) // 更新日時の確認
+                .andExpect(view().name("reports/detail")) // viewの確認
+                .andReturn(); // 内容の取得
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        // ETagはセッションごとに異なるため、以降のリクエストも同じセッションで送信する
+        MockHttpSession session = (MockHttpSession) result.getRequest().getSession();
+
+        // 同じ版であれば描画しない
+        result = mockMvc.perform(get("/reports/1").session(session).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified()) // ステータスを確認
+                .andReturn(); // 内容の取得
+        assertEquals(result.getModelAndView(), null);
+        assertEquals(result.getResponse().getContentAsString(), "");
+
+        // 閲覧者が異なる場合は再描画
+        mockMvc.perform(get("/reports/1").session(session).header(HttpHeaders.IF_NONE_MATCH, etag)
+                .with(user("2").authorities(() -> "GENERAL")))
+                .andExpect(status().isOk()); // ステータスを確認
+
+        // 日報が更新された場合は再描画
+        ReportService reportService = webApplicationContext.getBean(ReportService.class);
+        Report report = reportService.findWithContent(1);
+        Report renewed = new Report();
+        renewed.setId(1);
+        renewed.setReportDate(report.getReportDate());
+        renewed.setTitle("更新後のタイトル");
+        renewed.setContent(report.getContent());
+        reportService.renew(renewed, 1);
+
+        mockMvc.perform(get("/reports/1").session(session).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(model().attribute("report", report)); // Modelの内容を確認
+    }
+
+    // テストケース2 内容は詳細画面・更新画面の表示時のみ読み込まれ、更新した内容が表示される
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    @Transactional
+    void testDetailContent() throws Exception {
+        // 削除・更新等で使用する検索では内容を読み込まない
+        ReportService reportService = webApplicationContext.getBean(ReportService.class);
+        assertEquals(reportService.findByReport(1).getContent(), null);
+
+        MvcResult result = mockMvc.perform(get("/reports/1/update")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andReturn(); // 内容の取得
+        Report report = (Report) result.getModelAndView().getModel().get("report");
+        assertEquals(report.getContent(), "煌木　太郎の記載、内容");
+
+        Report renewed = new Report();
+        renewed.setId(1);
+        renewed.setReportDate(report.getReportDate());
+        renewed.setTitle(report.getTitle());
+        renewed.setContent("更新後の内容");
+        renewed.setEmployeeCode("1");
+        mockMvc.perform(post("/reports/1/update").flashAttr("report", renewed).with(csrf()))
+                .andExpect(redirectedUrl("/reports"));
+
+        String html = mockMvc.perform(get("/reports/1")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(html.contains("更新後の内容"), true);
+    }
+
+    // 日報一括登録
+    // テストケース1 正しい行のみ登録され、エラーの行は行番号とともに返される
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    @Transactional
+    void testImportCsv() throws Exception {
+        String csv = "日付,社員番号,タイトル,内容\r\n"
+                + "2000-01-01,1,一括登録テスト,\"内容1,\r\n改行あり\"\r\n" // 正常(カンマ・改行を含む)
+                + LocalDate.now() + ",1,一括登録テスト,内容2\r\n" // 同一日付の日報が登録済み
+                + "2000/1/2,1,,内容3\r\n" // タイトル未入力
+                + "2000-01-03,999,一括登録テスト,内容4\r\n" // 存在しない従業員
+                + "2000-01-01,1,一括登録テスト,内容5\r\n"; // ファイル内で日付が重複
+        MockMultipartFile file = new MockMultipartFile("file", "reports.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        MvcResult result = mockMvc.perform(multipart("/reports/import").file(file).with(csrf())) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(view().name("reports/import")) // viewの確認
+                .andReturn(); // 内容の取得
+
+        ReportImportResult importResult = (ReportImportResult) result.getModelAndView().getModel().get("result");
+        assertEquals(importResult.total(), 5);
+        assertEquals(importResult.imported(), 1);
+        assertEquals(importResult.errorCount(), 4);
+        assertEquals(importResult.errors().stream().map(ReportImportResult.RowError::row).toList(),
+                List.of(2, 3, 4, 5));
+    }
+
+    // テストケース2 一般ユーザーは一括登録できない
+    @Test
+    @WithMockUser(username = "2", authorities = "GENERAL")
+    void testImportForbidden() throws Exception {
+        mockMvc.perform(get("/reports/import")) // URLにアクセス
+                .andExpect(status().isForbidden()); // ステータスを確認
+    }
+
+    // 日報月別件数画面
+    // テストケース1 初期データの日報が集計されている
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testSummary() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reports/summary")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(view().name("reports/summary")) // viewの確認
+                .andReturn(); // 内容の取得
+
+        ReportSummaryTable summary = (ReportSummaryTable) result.getModelAndView().getModel().get("summary");
+        ReportSummaryTable.Line line = summary.lines().stream().filter(l -> "1".equals(l.employeeCode())).findFirst()
+                .get();
+        assertEquals(line.employeeName(), "煌木　太郎");
+        assertEquals(line.counts().get(LocalDate.now().getMonthValue() - 1) > 0, true);
+        assertEquals(line.lastReportDate(), LocalDate.now());
+    }
+
+    // テストケース2 日報の登録・日付の変更・削除が同じトランザクションで集計に反映される
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    @Transactional
+    void testSummaryUpdate() throws Exception {
+        ReportService reportService = webApplicationContext.getBean(ReportService.class);
+
+        Report report = new Report();
+        report.setReportDate(LocalDate.of(2000, 1, 15));
+        report.setTitle("集計テスト");
+        report.setContent("集計テスト");
+        report.setEmployeeCode("1");
+        reportService.save(report);
+        Integer id = report.getId();
+
+        ReportSummaryTable.Line line = summaryLine(2000);
+        assertEquals(line.counts().get(0), 1);
+        assertEquals(line.lastReportDate(), LocalDate.of(2000, 1, 15));
+
+        // 翌月に変更
+        Report renewed = new Report();
+        renewed.setId(id);
+        renewed.setReportDate(LocalDate.of(2000, 2, 3));
+        renewed.setTitle("集計テスト");
+        renewed.setContent("集計テスト");
+        reportService.renew(renewed, id);
+
+        line = summaryLine(2000);
+        assertEquals(line.counts().get(0), 0);
+        assertEquals(line.counts().get(1), 1);
+        assertEquals(line.total(), 1);
+
+        reportService.delete(id);
+        assertEquals(summaryLine(2000), null);
+    }
+
+    // テストケース3 一般ユーザーは表示できない
+    @Test
+    @WithMockUser(username = "2", authorities = "GENERAL")
+    void testSummaryForbidden() throws Exception {
+        mockMvc.perform(get("/reports/summary")) // URLにアクセス
+                .andExpect(status().isForbidden()); // ステータスを確認
+    }
+
+    // テストケース4 範囲外の年はエラーメッセージを表示し、今年の集計を表示する
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testSummaryYearError() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reports/summary").param("year", "1000000000")) // URLにアクセス
+                .andExpect(status().isOk()) // ステータスを確認
+                .andExpect(model().attribute("yearError", "年は1年から9999年の範囲で指定してください")) // エラーメッセージの確認
+                .andReturn(); // 内容の取得
+
+        ReportSummaryTable summary = (ReportSummaryTable) result.getModelAndView().getModel().get("summary");
+        assertEquals(summary.year(), LocalDate.now().getYear());
+    }
+
+    // 集計表の従業員1の行(なければnull)
+    private ReportSummaryTable.Line summaryLine(int year) throws Exception {
+        MvcResult result = mockMvc.perform(get("/reports/summary").param("year", String.valueOf(year)))
+                .andExpect(status().isOk()).andReturn();
+        ReportSummaryTable summary = (ReportSummaryTable) result.getModelAndView().getModel().get("summary");
+        return summary.lines().stream().filter(l -> "1".equals(l.employeeCode())).findFirst().orElse(null);
+    }
+
+    // 日報CSV出力
+    // テストケース1 一般ユーザーは自分の日報のみ出力
+    @Test
+    @WithMockUser(username = "2", authorities = "GENERAL")
+    void testExportCsvGeneral() throws Exception {
+        // ストリーミング応答のため非同期処理の完了後に内容を検証する
+        MvcResult result = mockMvc.perform(get("/reports/export.csv")) // URLにアクセス
+                .andExpect(request().asyncStarted()) // 非同期処理の開始を確認
+                .andReturn();
+
+        String csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk()) // ステータスを確認
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(csv.contains("田中　太郎の記載、タイトル"), true);
+        assertEquals(csv.contains("田中　太郎の記載、内容"), true);
+        assertEquals(csv.contains("煌木　太郎の記載、タイトル"), false);
+    }
+
+    // テストケース2 期間の指定誤り(開始日が終了日より後)
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testExportCsvError() throws Exception {
+        mockMvc.perform(get("/reports/export.csv").param("from", "2024-02-01").param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest()); // ステータスを確認
+    }
+
+    // テストケース3 数式として実行される文字で始まるタイトル・内容は、先頭に'を付けて出力する
+    @Test
+    @WithMockUser(username = "1", authorities = "ADMIN")
+    void testExportCsvFormula() throws Exception {
+        ReportService reportService = webApplicationContext.getBean(ReportService.class);
+
+        // 出力は別スレッドで行われるため、コミットした日報で確認して最後に削除する
+        Report report = new Report();
+        report.setReportDate(LocalDate.of(2000, 3, 1));
+        report.setTitle("=HYPERLINK(\"http://example.com\")");
+        report.setContent("@SUM(1+1)");
+        report.setEmployeeCode("1");
+        reportService.save(report);
+        try {
+            MvcResult result = mockMvc.perform(get("/reports/export.csv").param("from", "2000-03-01")
+                    .param("to", "2000-03-01")).andExpect(request().asyncStarted()).andReturn();
+            String csv = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn().getResponse()
+                    .getContentAsString(StandardCharsets.UTF_8);
+
+            assertEquals(csv.contains(",\"'=HYPERLINK(\"\"http://example.com\"\")\",'@SUM(1+1),"), true);
+        } finally {
+            reportService.delete(report.getId());
+        }
+    }
+
+}
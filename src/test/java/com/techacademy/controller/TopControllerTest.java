@@ -1,25 +1,49 @@
 package com.techacademy.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.logout;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+
+import com.techacademy.service.EmployeeCache;
+import com.techacademy.startup.FirstRequestTimer;
+import com.techacademy.view.FragmentCache;
+
+import jakarta.servlet.Filter;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+// テストでは既定で無効となるメトリクスの出力(Prometheus形式のエンドポイント)を有効にする
+@AutoConfigureObservability(tracing = false)
 @ExtendWith(SpringExtension.class)
 class TopControllerTest {
 
@@ -48,6 +72,34 @@ class TopControllerTest {
 
     }
 
+    // ログイン画面からの送信(パスワードの照合は専用のスレッドで行う)
+    @Test
+    @Transactional
+    void testFormLogin() throws Exception {
+        String password = webApplicationContext.getBean(PasswordEncoder.class).encode("password1");
+        webApplicationContext.getBean(JdbcTemplate.class).update("UPDATE employees SET password = ? WHERE code = '2'",
+                password);
+
+        mockMvc.perform(formLogin().user("2").password("password1")).andExpect(redirectedUrl("/"))
+                .andExpect(authenticated().withUsername("2"));
+        mockMvc.perform(formLogin().user("2").password("wrong")).andExpect(redirectedUrl("/login?error"))
+                .andExpect(unauthenticated());
+        // 変更したパスワードがロールバック後にキャッシュに残らないようにする
+        webApplicationContext.getBean(EmployeeCache.class).invalidate("2");
+    }
+
+    // 監視用エンドポイント
+    // ヘルスチェックは未ログインで取得でき、メトリクスは(管理用ポートを指定しない場合)管理者のみ取得できる
+    @Test
+    void testActuatorSecurity() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().is3xxRedirection());
+        mockMvc.perform(get("/actuator/prometheus").with(user("2").authorities(() -> "GENERAL")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").with(user("1").authorities(() -> "ADMIN")))
+                .andExpect(status().isOk());
+    }
+
     // ログアウト処理
     @Test
     @WithMockUser
@@ -55,4 +107,100 @@ class TopControllerTest {
         this.mockMvc.perform(logout());
     }
 
+    // 起動から最初のリクエストの応答までの時間の計測(監視用のリクエストは対象外)
+    @Test
+    @WithMockUser
+    void testFirstRequestTime() throws Exception {
+        FirstRequestTimer timer = webApplicationContext.getBean(FirstRequestTimer.class);
+        MockMvc timedMockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).addFilters(timer)
+                .apply(springSecurity()).build();
+
+        timedMockMvc.perform(get("/actuator/health"));
+        assertEquals(Double.isNaN(timer.getFirstRequestMillis()), true);
+
+        timedMockMvc.perform(get("/login")).andExpect(status().isOk());
+        double first = timer.getFirstRequestMillis();
+        assertEquals(first > 0, true);
+
+        // 2回目以降のリクエストでは変わらない
+        timedMockMvc.perform(get("/login"));
+        assertEquals(timer.getFirstRequestMillis(), first);
+    }
+
+    // 共通部品(サイドメニュー)のキャッシュ
+    // 2回目以降はキャッシュから出力され、権限ごとに内容が異なり、CSRFトークンはリクエストごとの値になる
+    @Test
+    void testFragmentCache() throws Exception {
+        FragmentCache fragmentCache = webApplicationContext.getBean(FragmentCache.class);
+        fragmentCache.getNativeCache().invalidateAll();
+        long hits = fragmentCache.getNativeCache().stats().hitCount();
+
+        MvcResult first = mockMvc.perform(get("/reports").with(user("1").authorities(() -> "ADMIN")))
+                .andExpect(status().isOk()).andReturn();
+        MvcResult second = mockMvc.perform(get("/reports").with(user("1").authorities(() -> "ADMIN")))
+                .andExpect(status().isOk()).andReturn();
+        // ヘッダー・サイドメニューの2件
+        assertEquals(fragmentCache.getNativeCache().stats().hitCount() - hits, 2L);
+
+        String side = sideMenu(second);
+        assertEquals(side.contains("/employees"), true);
+        assertEquals(side.contains("dr:cache"), false);
+        assertEquals(side.contains(csrfToken(second)), true);
+        assertEquals(side.contains(csrfToken(first)), false);
+        assertEquals(sideMenu(first).replace(csrfToken(first), ""), side.replace(csrfToken(second), ""));
+
+        // 一般ユーザーには従業員メニューを表示しない
+        MvcResult general = mockMvc.perform(get("/reports").with(user("2").authorities(() -> "GENERAL")))
+                .andExpect(status().isOk()).andReturn();
+        assertEquals(sideMenu(general).contains("/employees"), false);
+
+        // ヘッダーは画面ごとのタイトルで表示する
+        MvcResult detail = mockMvc.perform(get("/reports/1").with(user("1").authorities(() -> "ADMIN")))
+                .andExpect(status().isOk()).andReturn();
+        assertEquals(detail.getResponse().getContentAsString().contains("<title>日報詳細</title>"), true);
+        assertEquals(second.getResponse().getContentAsString().contains("<title>日報詳細</title>"), false);
+    }
+
+    // css・jsの配信
+    // 画面のURLはハッシュ値付きになり、圧縮済みのファイルを変更されないものとして返す(認証のフィルタ処理は行わない)
+    @Test
+    void testStaticResources() throws Exception {
+        // URLの変換前の部品がキャッシュされていないようにする
+        webApplicationContext.getBean(FragmentCache.class).getNativeCache().invalidateAll();
+        // アプリケーションと同じく、Spring Securityの後にURLの変換を行う
+        MockMvc resourceMockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(webApplicationContext.getBean("springSecurityFilterChain", Filter.class),
+                        new ResourceUrlEncodingFilter())
+                .build();
+
+        String html = resourceMockMvc.perform(get("/login")).andExpect(status().isOk()).andReturn().getResponse()
+                .getContentAsString();
+        Matcher matcher = Pattern.compile("/css/bootstrap\\.min-[0-9a-f]{32}\\.css").matcher(html);
+        assertEquals(matcher.find(), true);
+        assertEquals(html.contains("/js/bootstrap.min.js"), false);
+
+        resourceMockMvc.perform(get(matcher.group()).header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+                .andExpect(header().doesNotExist("X-Frame-Options"));
+
+        // ハッシュ値のないURLは毎回確認させ、内容と一致しないハッシュ値はキャッシュさせない
+        resourceMockMvc.perform(get("/css/bootstrap.min.css"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, public"));
+        resourceMockMvc.perform(get("/css/bootstrap.min-0123456789abcdef0123456789abcdef.css"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Cache-Control"));
+    }
+
+    private static String sideMenu(MvcResult result) throws Exception {
+        String html = result.getResponse().getContentAsString();
+        return html.substring(html.indexOf("<nav"), html.indexOf("</nav>"));
+    }
+
+    private static String csrfToken(MvcResult result) {
+        return ((CsrfToken) result.getRequest().getAttribute(CsrfToken.class.getName())).getToken();
+    }
+
 }
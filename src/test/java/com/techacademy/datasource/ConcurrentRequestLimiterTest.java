@@ -0,0 +1,60 @@
+package com.techacademy.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+class ConcurrentRequestLimiterTest {
+
+    // テストケース1 上限を超えたリクエストは空きを待ち、待ち時間の上限を超えた場合は503を返す
+    // 監視用のリクエストは上限に関係なく処理する
+    @Test
+    void testLimit() throws Exception {
+        ConcurrentRequestLimiter limiter = new ConcurrentRequestLimiter(1, Duration.ofMillis(200));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 1件目は処理中のまま止めておく
+        Thread first = new Thread(() -> {
+            try {
+                limiter.doFilter(new MockHttpServletRequest("GET", "/reports"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            started.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        first.start();
+        assertEquals(started.await(5, TimeUnit.SECONDS), true);
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        limiter.doFilter(new MockHttpServletRequest("GET", "/reports"), rejected, new MockFilterChain());
+        assertEquals(rejected.getStatus(), HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        limiter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health, new MockFilterChain());
+        assertEquals(health.getStatus(), HttpServletResponse.SC_OK);
+
+        // 1件目の終了後は処理できる
+        release.countDown();
+        first.join();
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        limiter.doFilter(new MockHttpServletRequest("GET", "/reports"), accepted, new MockFilterChain());
+        assertEquals(accepted.getStatus(), HttpServletResponse.SC_OK);
+    }
+}
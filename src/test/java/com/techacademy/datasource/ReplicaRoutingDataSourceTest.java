@@ -0,0 +1,132 @@
+package com.techacademy.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// 2つの組み込みDB(H2)をプライマリ・レプリカとして振り分けを確認する
+class ReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+    private SwitchableDataSource replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    private String currentUser;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTemplate;
+    private TransactionTemplate readOnlyTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        // 接続先を判別できるよう、それぞれのDBに名前を登録しておく
+        primary = createDatabase("primary");
+        replica = new SwitchableDataSource(createDatabase("replica"));
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), () -> currentUser,
+                Duration.ofMinutes(1));
+
+        jdbcTemplate = new JdbcTemplate(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routingDataSource);
+        writeTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        routingDataSource.close();
+        ((HikariDataSource) replica.getTargetDataSource()).close();
+    }
+
+    // テストケース1 参照専用のトランザクションのみレプリカで処理される
+    @Test
+    void testRouting() {
+        assertEquals(node(), "primary");
+        assertEquals(writeTemplate.execute(status -> node()), "primary");
+        assertEquals(readOnlyTemplate.execute(status -> node()), "replica");
+
+        // プライマリの指定がある場合は参照専用でもプライマリ
+        assertEquals(ReplicaRoutingDataSource.usePrimary(() -> readOnlyTemplate.execute(status -> node())),
+                "primary");
+    }
+
+    // テストケース2 レプリカが停止した場合はプライマリで処理し、死活監視で復旧を検知したら再びレプリカに振り分ける
+    @Test
+    void testFallback() {
+        replica.down = true;
+        assertEquals(readOnlyTemplate.execute(status -> node()), "primary");
+        assertEquals(routingDataSource.getReplicas().get(0).isHealthy(), false);
+
+        // 復旧しても死活監視までは振り分けない
+        replica.down = false;
+        assertEquals(readOnlyTemplate.execute(status -> node()), "primary");
+
+        routingDataSource.checkReplicas();
+        assertEquals(routingDataSource.getReplicas().get(0).isHealthy(), true);
+        assertEquals(readOnlyTemplate.execute(status -> node()), "replica");
+    }
+
+    // テストケース3 更新したユーザーは一定時間プライマリで参照する(他のユーザー・ロールバック時は対象外)
+    @Test
+    void testReadYourWrites() {
+        currentUser = "1";
+        writeTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return node();
+        });
+        assertEquals(readOnlyTemplate.execute(status -> node()), "replica");
+
+        writeTemplate.execute(status -> node());
+        assertEquals(readOnlyTemplate.execute(status -> node()), "primary");
+
+        currentUser = "2";
+        assertEquals(readOnlyTemplate.execute(status -> node()), "replica");
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static HikariDataSource createDatabase(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setPoolName(name);
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(10))");
+        template.execute("DELETE FROM node");
+        template.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    // 停止状態を切り替えられるDataSource(停止中は接続できない)
+    private static class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("replica is down");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.techacademy.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+
+class OffloadedAuthenticationProviderTest {
+
+    // 照合用のスレッド1・待ち件数の上限1
+    private final OffloadedPasswordEncoder passwordEncoder = new OffloadedPasswordEncoder(
+            OffloadedPasswordEncoder.MIN_STRENGTH, 1, 1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        passwordEncoder.destroy();
+    }
+
+    // テストケース1 照合待ちが上限を超えた場合は、ログイン失敗(認証の例外)となる
+    @Test
+    void testRejected() throws Exception {
+        String encoded = passwordEncoder.encode("password1");
+        OffloadedAuthenticationProvider provider = new OffloadedAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(
+                code -> User.withUsername(code).password(encoded).authorities("GENERAL").build());
+
+        // 照合中の1件と待ちの1件で埋める
+        CountDownLatch started = new CountDownLatch(1);
+        passwordEncoder.getExecutor().submit(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        passwordEncoder.getExecutor().submit(() -> null);
+
+        AuthenticationServiceException e = assertThrows(AuthenticationServiceException.class,
+                () -> provider.authenticate(new UsernamePasswordAuthenticationToken("1", "password1")));
+        assertEquals(e.getMessage(), "パスワードの照合待ちが上限を超えています");
+
+        // 空きができればログインできる
+        release.countDown();
+        assertEquals(provider.authenticate(new UsernamePasswordAuthenticationToken("1", "password1")).isAuthenticated(),
+                true);
+    }
+}
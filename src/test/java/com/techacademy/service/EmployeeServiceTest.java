@@ -2,17 +2,28 @@ package com.techacademy.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.techacademy.constants.ErrorKinds;
 import com.techacademy.entity.Employee;
 import com.techacademy.entity.Employee.Role;
+import com.techacademy.repository.EmployeeRepository;
+import com.techacademy.security.OffloadedPasswordEncoder;
 
 @SpringBootTest
 @ExtendWith(SpringExtension.class)
@@ -21,6 +32,27 @@ class EmployeeServiceTest {
     @Autowired
     private EmployeeService service;
 
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private UserDetailService userDetailService;
+
+    @Autowired
+    private OffloadedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     @WithMockUser
     void testFindAll() {
@@ -62,4 +94,98 @@ class EmployeeServiceTest {
 
     }
 
+    @Test
+    @WithMockUser
+    void testFindByCodeCache() {
+
+        // 1回目はDBから読み込まれ、2回目はキャッシュから取得される
+        service.findByCode("2");
+        long hitCount = employeeCache.stats().hitCount();
+        Employee employee = service.findByCode("2");
+        assertEquals(employee.getCode(), "2");
+        assertEquals(employeeCache.stats().hitCount(), hitCount + 1);
+
+        // キャッシュから削除した場合は再度DBから読み込まれる
+        employeeCache.invalidate("2");
+        long missCount = employeeCache.stats().missCount();
+        employee = service.findByCode("2");
+        assertEquals(employee.getName(), "田中　太郎");
+        assertEquals(employeeCache.stats().missCount(), missCount + 1);
+
+        // 取得した従業員を変更しても、キャッシュの内容は変わらない(取得のたびに複製を返す)
+        employee.setName("田中　次郎");
+        assertEquals(service.findByCode("2").getName(), "田中　太郎");
+    }
+
+    @Test
+    @WithMockUser
+    @Transactional
+    void testDeleteWithReports() {
+
+        // ログイン中の従業員(社員番号1)
+        Employee loginEmployee = new Employee();
+        loginEmployee.setCode("1");
+        loginEmployee.setName("煌木　太郎");
+        loginEmployee.setRole(Role.ADMIN);
+        loginEmployee.setPassword("");
+
+        assertEquals(reportService.findPage("2", null, null, false, 10).rows().isEmpty(), false);
+
+        // 従業員を削除すると、その従業員の日報もまとめて論理削除される
+        ErrorKinds result = service.delete("2", new UserDetail(loginEmployee));
+        assertEquals(result, ErrorKinds.SUCCESS);
+        assertEquals(service.findByCode("2"), null);
+        assertEquals(reportService.findPage("2", null, null, false, 10).rows().isEmpty(), true);
+    }
+
+    @Test
+    @WithMockUser
+    @Transactional
+    void testUpdatePassword() {
+
+        // 現在の強度より低い強度のハッシュは再ハッシュ化の対象となる
+        String oldPassword = "$2a$10$vY93/U2cXCfEMBESYnDJUevcjJ208sXav23S.K8elE/J6Sxr4w5jO";
+        OffloadedPasswordEncoder strongerEncoder = new OffloadedPasswordEncoder(11, 1, 1);
+        assertEquals(strongerEncoder.upgradeEncoding(oldPassword), true);
+        strongerEncoder.destroy();
+
+        // 起動時に決めた強度は下限以上であること
+        assertTrue(passwordEncoder.getStrength() >= OffloadedPasswordEncoder.MIN_STRENGTH);
+
+        // ログイン成功時に呼ばれる再ハッシュ化で、DBとキャッシュの両方が新しいハッシュになる
+        String newPassword = passwordEncoder.encode("password1");
+        userDetailService.updatePassword(userDetailService.loadUserByUsername("1"), newPassword);
+        Employee employee = service.findByCode("1");
+        assertEquals(employee.getPassword(), newPassword);
+        assertEquals(passwordEncoder.matches("password1", employee.getPassword()), true);
+    }
+
+    @Test
+    @Transactional
+    void testLoginAfterChangeOnOtherInstance() throws Exception {
+
+        // 有効期限1秒のキャッシュを使うログイン処理
+        UserDetailService loginService = new UserDetailService(employeeRepository,
+                new EmployeeCache(10, Duration.ofSeconds(1)));
+
+        // ログインでキャッシュに読み込まれる
+        assertEquals(loginService.loadUserByUsername("2").getUsername(), "2");
+
+        // 他のインスタンスでの更新(このインスタンスのキャッシュは削除されない)は、有効期限内はDBに問い合わせない
+        jdbcTemplate.update("UPDATE employees SET name = '田中　次郎', updated_at = ? WHERE code = '2'",
+                Timestamp.valueOf(LocalDateTime.now()));
+        assertEquals(((UserDetail) loginService.loadUserByUsername("2")).getName(), "田中　太郎");
+
+        // 有効期限が過ぎると読み込み直される(別のリクエストとして、読み込み済みのエンティティを破棄する)
+        Thread.sleep(1100);
+        entityManager.clear();
+        assertEquals(((UserDetail) loginService.loadUserByUsername("2")).getName(), "田中　次郎");
+
+        // 他のインスタンスで削除された従業員は、有効期限が過ぎるとログインできない
+        jdbcTemplate.update("UPDATE employees SET delete_flg = 1 WHERE code = '2'");
+        Thread.sleep(1100);
+        entityManager.clear();
+        assertThrows(UsernameNotFoundException.class, () -> loginService.loadUserByUsername("2"));
+    }
+
 }
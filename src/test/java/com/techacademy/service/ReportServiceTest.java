@@ -0,0 +1,38 @@
+package com.techacademy.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class ReportServiceTest {
+
+    // テストケース1 同一従業員・同一日付の一意制約違反のみを日付の重複と判定する
+    @Test
+    void testIsDuplicateDate() {
+        // MySQLのメッセージから取得した制約名(テーブル名が付く)
+        assertEquals(ReportService.isDuplicateDate(violation("Duplicate entry '1-2024-01-01-1' for key "
+                + "'reports.uk_reports_employee_date_active'", "reports.uk_reports_employee_date_active")), true);
+        // 内容の登録時の主キー違反
+        assertEquals(ReportService.isDuplicateDate(
+                violation("Duplicate entry '10' for key 'report_contents.PRIMARY'", "report_contents.PRIMARY")), false);
+        // NOT NULL違反(制約名なし)
+        assertEquals(ReportService.isDuplicateDate(violation("Column 'title' cannot be null", null)), false);
+    }
+
+    // テストケース2 制約名を取得できない場合は、DBのエラーメッセージで判定する
+    @Test
+    void testIsDuplicateDateWithoutConstraintName() {
+        assertEquals(ReportService.isDuplicateDate(violation("Unique index or primary key violation: "
+                + "\"PUBLIC.UK_REPORTS_EMPLOYEE_DATE_ACTIVE_INDEX_8 ON PUBLIC.REPORTS(...)\"", null)), true);
+    }
+
+    private static DataIntegrityViolationException violation(String message, String constraintName) {
+        SQLIntegrityConstraintViolationException sqlException = new SQLIntegrityConstraintViolationException(message);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException, constraintName));
+    }
+}
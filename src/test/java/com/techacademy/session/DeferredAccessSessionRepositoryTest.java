@@ -0,0 +1,116 @@
+package com.techacademy.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// 組み込みDB(H2)のセッションテーブルで、最終アクセス日時の書き込みが保留されることを確認する
+class DeferredAccessSessionRepositoryTest {
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcIndexedSessionRepository jdbcRepository;
+    private DeferredAccessSessionRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:session;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("org/springframework/session/jdbc/schema-drop-h2.sql"),
+                new ClassPathResource("org/springframework/session/jdbc/schema-h2.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcRepository = new JdbcIndexedSessionRepository(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        jdbcRepository.afterPropertiesSet();
+        repository = new DeferredAccessSessionRepository(jdbcRepository, jdbcTemplate,
+                JdbcIndexedSessionRepository.DEFAULT_TABLE_NAME, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        repository.shutdown();
+        jdbcRepository.destroy();
+        dataSource.close();
+    }
+
+    // テストケース1 最終アクセス日時のみの変更は保留され、まとめて書き込まれる
+    @Test
+    void testDeferredAccess() {
+        String id = createSession();
+        Instant created = lastAccessedTime(id);
+
+        Instant accessed = created.plusSeconds(10);
+        DeferredAccessSessionRepository.TrackedSession session = repository.findById(id);
+        session.setLastAccessedTime(accessed);
+        repository.save(session);
+        // 同じリクエストで再度保存されても書き込まない
+        repository.save(session);
+        assertEquals(lastAccessedTime(id), created);
+        assertEquals(repository.getPendingCount(), 1);
+
+        repository.flush();
+        assertEquals(lastAccessedTime(id), accessed);
+        assertEquals(jdbcTemplate.queryForObject("SELECT EXPIRY_TIME FROM SPRING_SESSION WHERE SESSION_ID = ?",
+                Long.class, id), accessed.plus(Duration.ofMinutes(30)).toEpochMilli());
+        assertEquals(repository.getPendingCount(), 0);
+    }
+
+    // テストケース2 属性を変更した場合はすぐに保存される
+    @Test
+    void testChanged() {
+        String id = createSession();
+        Instant accessed = lastAccessedTime(id).plusSeconds(10);
+
+        DeferredAccessSessionRepository.TrackedSession session = repository.findById(id);
+        session.setLastAccessedTime(accessed);
+        session.setAttribute("name", "value2");
+        repository.save(session);
+
+        assertEquals(lastAccessedTime(id), accessed);
+        assertEquals(repository.findById(id).getAttribute("name"), "value2");
+        assertEquals(repository.getPendingCount(), 0);
+    }
+
+    // テストケース3 保存済みの有効期限が近い場合は最終アクセス日時のみの変更でもすぐに保存される
+    @Test
+    void testExpiresSoon() {
+        DeferredAccessSessionRepository.TrackedSession session = repository.createSession();
+        session.setMaxInactiveInterval(Duration.ofMinutes(2));
+        repository.save(session);
+        String id = session.getId();
+        Instant accessed = lastAccessedTime(id).plusSeconds(10);
+
+        session = repository.findById(id);
+        session.setLastAccessedTime(accessed);
+        repository.save(session);
+
+        assertEquals(lastAccessedTime(id), accessed);
+        assertEquals(repository.getPendingCount(), 0);
+    }
+
+    private String createSession() {
+        DeferredAccessSessionRepository.TrackedSession session = repository.createSession();
+        session.setAttribute("name", "value");
+        repository.save(session);
+        return session.getId();
+    }
+
+    private Instant lastAccessedTime(String id) {
+        return Instant.ofEpochMilli(jdbcTemplate.queryForObject(
+                "SELECT LAST_ACCESS_TIME FROM SPRING_SESSION WHERE SESSION_ID = ?", Long.class, id));
+    }
+}